@@ -53,6 +53,7 @@ export default function App() {
         sock.onmessage = (event) => {
             try {
                 const msg = JSON.parse(event.data);
+                if (msg.type) return;  // resync 등 제어 프레임은 메시지 목록에 넣지 않음
                 setMessages(prev => [msg, ...prev]);  // 최신 메시지를 맨 앞에
             } catch {
                 // 파싱 실패 시 무시
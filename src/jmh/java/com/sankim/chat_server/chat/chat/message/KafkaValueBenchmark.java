@@ -0,0 +1,70 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.config.KafkaConfig;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * chat-messages 토픽 값 직렬화: 바이너리 코덱(MessageResponseCodec) vs 예전 Spring JsonSerializer.
+ * (chat.kafka.producer.value-format = binary | json 두 설정의 레코드 1건 비용)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class KafkaValueBenchmark {
+
+	private static final String TOPIC = KafkaConfig.CHAT_MESSAGES_TOPIC;
+
+	@Param({"32", "1024"})
+	int contentLength;
+
+	private MessageResponse dto;
+	private MessageResponseSerializer binarySerializer;
+	private MessageResponseDeserializer binaryDeserializer;
+	private JsonSerializer<MessageResponse> jsonSerializer;
+	private JsonDeserializer<MessageResponse> jsonDeserializer;
+	private byte[] binaryBytes;
+	private byte[] jsonBytes;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		dto = new MessageResponse(7_312_845_120_001L, 42L, 1_234L, 9L, "TEXT",
+				"가".repeat(contentLength), Instant.parse("2025-09-08T10:15:30.123456Z"), 1L);
+		binarySerializer = new MessageResponseSerializer();
+		binaryDeserializer = new MessageResponseDeserializer();
+		jsonSerializer = new JsonSerializer<>();
+		jsonDeserializer = new JsonDeserializer<>(MessageResponse.class, false);
+
+		binaryBytes = binarySerializer.serialize(TOPIC, dto);
+		jsonBytes = jsonSerializer.serialize(TOPIC, new RecordHeaders(), dto);
+	}
+
+	@Benchmark
+	public byte[] serializeBinary() {
+		return binarySerializer.serialize(TOPIC, new RecordHeaders(), dto);
+	}
+
+	@Benchmark
+	public byte[] serializeJson() {
+		// 프로듀서처럼 헤더를 넘긴다 (JsonSerializer 는 여기에 타입 헤더를 추가한다)
+		return jsonSerializer.serialize(TOPIC, new RecordHeaders(), dto);
+	}
+
+	@Benchmark
+	public MessageResponse deserializeBinary() {
+		return binaryDeserializer.deserialize(TOPIC, new RecordHeaders(), binaryBytes);
+	}
+
+	@Benchmark
+	public MessageResponse deserializeJson() {
+		return jsonDeserializer.deserialize(TOPIC, new RecordHeaders(), jsonBytes);
+	}
+}
@@ -0,0 +1,62 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.Chat;
+import com.sankim.chat_server.chat.chat.Message;
+import com.sankim.chat_server.chat.chat.User;
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.common.BaseTimeEntity;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getMessages 의 DB 경로에서 페이지 1장(엔티티) → DTO 로 바꾸는 비용.
+ * 쿼리는 빼고 Page.map + MessageService.toResponse 만 잰다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageMappingBenchmark {
+
+	@Param({"50", "200"})
+	int pageSize;
+
+	private Page<Message> page;
+
+	@Setup(Level.Trial)
+	public void setUp() throws ReflectiveOperationException {
+		Chat chat = Chat.builder().id(42L).type("GROUP").title("bench").build();
+		Field createAt = BaseTimeEntity.class.getDeclaredField("createAt");
+		createAt.setAccessible(true);
+
+		List<Message> rows = new ArrayList<>(pageSize);
+		Instant now = Instant.now();
+		for (int i = 0; i < pageSize; i++) {
+			User sender = User.builder().id((long) (i % 8) + 1).build();
+			Message m = Message.builder()
+					.id(7_312_845_120_000L + i)
+					.chat(chat)
+					.seq((long) i + 1)
+					.sender(sender)
+					.contentType("TEXT")
+					.content("메시지 본문 " + i)
+					.build();
+			createAt.set(m, now.minusMillis(i));
+			rows.add(m);
+		}
+		page = new PageImpl<>(rows);
+	}
+
+	@Benchmark
+	public Page<MessageResponse> toResponses() {
+		return page.map(m -> MessageService.toResponse(m, 0L));
+	}
+}
@@ -0,0 +1,106 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.support.SendPipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 방 1개에 세션 N 개가 붙어 있을 때 broadcastMessage 1회 비용 (직렬화 1번 + 세션 큐 N 번 enqueue).
+ * 실제 전송은 송신 풀이 no-op 세션으로 비우므로, 측정값은 커밋 스레드가 붙잡혀 있는 시간이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BroadcastBenchmark {
+
+	private static final long CHAT_ID = 1L;
+
+	@Param({"10", "1000", "50000"})
+	int sessions;
+
+	@Param({"json", "binary"})
+	String protocol;
+
+	private OutboundSessionFactory factory;
+	private ChatWebSocketHandler handler;
+	private MessageResponse dto;
+	private long nextId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RoomSessionRegistry sessionRegistry = new RoomSessionRegistry(registry);
+		factory = new OutboundSessionFactory(sessionRegistry, registry,
+				1000, 1 << 20, 10_000, OverflowPolicy.DROP_OLDEST, 8);
+		// 브로드캐스트는 세션 인덱스/직렬화/메트릭만 쓴다. 나머지 협력 객체는 필요 없음
+		handler = new ChatWebSocketHandler(null, null, null, sessionRegistry, factory, null, null, null,
+				new SendPipelineMetrics(registry), 200);
+
+		String accepted = "binary".equals(protocol) ? BinaryFrameCodec.PROTOCOL : null;
+		for (int i = 0; i < sessions; i++) {
+			long userId = i + 1;
+			OutboundSession out = factory.create(new NoopSession("s-" + userId, accepted), userId);
+			sessionRegistry.register(userId, out, List.of(CHAT_ID));
+		}
+		dto = new MessageResponse(1L, CHAT_ID, 1L, 1L, "TEXT", "안녕하세요 벤치마크 메시지입니다", Instant.now(), 1L);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		factory.shutdown();
+	}
+
+	@Benchmark
+	public void broadcast() {
+		long id = ++nextId;
+		handler.broadcastMessage(new MessageResponse(id, CHAT_ID, id, dto.senderId(), dto.contentType(),
+				dto.content(), dto.createdAt(), 1L), DeliveryPath.LOCAL);
+	}
+
+	/** 보내기만 하고 아무것도 안 하는 세션 */
+	static final class NoopSession implements WebSocketSession {
+		private final String id;
+		private final String acceptedProtocol;
+		private final Map<String, Object> attributes = new HashMap<>();
+
+		NoopSession(String id, String acceptedProtocol) {
+			this.id = id;
+			this.acceptedProtocol = acceptedProtocol;
+		}
+
+		@Override public String getId() { return id; }
+		@Override public URI getUri() { return null; }
+		@Override public HttpHeaders getHandshakeHeaders() { return HttpHeaders.EMPTY; }
+		@Override public Map<String, Object> getAttributes() { return attributes; }
+		@Override public Principal getPrincipal() { return null; }
+		@Override public InetSocketAddress getLocalAddress() { return null; }
+		@Override public InetSocketAddress getRemoteAddress() { return null; }
+		@Override public String getAcceptedProtocol() { return acceptedProtocol; }
+		@Override public void setTextMessageSizeLimit(int messageSizeLimit) { }
+		@Override public int getTextMessageSizeLimit() { return Integer.MAX_VALUE; }
+		@Override public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+		@Override public int getBinaryMessageSizeLimit() { return Integer.MAX_VALUE; }
+		@Override public List<WebSocketExtension> getExtensions() { return List.of(); }
+		@Override public void sendMessage(WebSocketMessage<?> message) { }
+		@Override public boolean isOpen() { return true; }
+		@Override public void close() { }
+		@Override public void close(CloseStatus status) { }
+	}
+}
@@ -0,0 +1,39 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 브로드캐스트 JSON 프레임 직렬화 (핸들러와 같은 ObjectMapper 설정).
+ * 메시지 1건당 JSON 세션이 하나라도 있으면 한 번 실행되는 부분이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageJsonBenchmark {
+
+	@Param({"32", "1024"})
+	int contentLength;
+
+	private ObjectMapper mapper;
+	private MessageResponse dto;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		mapper = ChatWebSocketHandler.newObjectMapper();
+		dto = new MessageResponse(7_312_845_120_001L, 42L, 1_234L, 9L, "TEXT",
+				"가".repeat(contentLength), Instant.parse("2025-09-08T10:15:30.123456Z"), 3L);
+	}
+
+	@Benchmark
+	public String toJson() throws JsonProcessingException {
+		return mapper.writeValueAsString(dto);
+	}
+}
@@ -1,11 +1,20 @@
 package com.sankim.chat_server.chat.chat;
 
 import com.sankim.chat_server.chat.chat.api.dto.ChatSummary;
+import com.sankim.chat_server.chat.chat.member.ChatMemberCache;
+import com.sankim.chat_server.chat.chat.member.ChatMembershipChangedEvent;
+import com.sankim.chat_server.chat.chat.read.ReadPointerStore;
+import com.sankim.chat_server.chat.chat.read.UnreadCounterStore;
+import com.sankim.chat_server.chat.chat.repository.ChatRepository;
 import com.sankim.chat_server.chat.chat.repository.MessageRepository;
 import com.sankim.chat_server.chat.chat.repository.UserChatRepository;
+import com.sankim.chat_server.chat.chat.repository.UserRepository;
+import com.sankim.chat_server.chat.chat.summary.ChatSummaryCache;
 import com.sankim.chat_server.chat.chat.Message;   // ← Message 엔티티 패키지에 맞게 import
 import com.sankim.chat_server.chat.chat.UserChat;  // ← UserChat 엔티티 패키지에 맞게 import
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -13,12 +22,25 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class ChatService {
 
     private final UserChatRepository userChatRepo;
     private final MessageRepository messageRepo;
+    private final ChatRepository chatRepo;
+    private final UserRepository userRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChatSummaryCache summaryCache;
+    private final UnreadCounterStore unreadStore;
+    private final ChatMemberCache memberCache;
+    private final ReadPointerStore readPointers;
 
     /**
      * 내 채팅방 목록 조회
@@ -30,6 +52,9 @@ public class ChatService {
      *   (N+1과 LazyInitializationException 예방)
      *
      * - 정렬은 UserChat의 자바 필드명 "updateAt" 기준입니다. (자주 바뀌는 시간)
+     *
+     * - 방 요약(제목/최근 메시지 등)은 ChatSummaryCache(L1 메모리 → L2 Redis)에서 먼저 찾고,
+     *   둘 다 없는 방만 DB 에서 읽습니다.
      */
     @Transactional(readOnly = true)
     public Page<ChatSummary> getMyChats(Long userId, int page, int size) {
@@ -40,24 +65,100 @@ public class ChatService {
         // fetch join으로 chat을 미리 로딩하는 전용 쿼리 사용
         Page<UserChat> p = userChatRepo.findPageWithChatByUserId(userId, pageable);
 
+        Map<Long, Chat> chats = new HashMap<>();
+        for (UserChat uc : p.getContent()) chats.put(uc.getChat().getId(), uc.getChat());
+        Map<Long, ChatSummary> summaries = summaryCache.getAll(chats.keySet(), missing -> loadSummaries(missing, chats));
+        Map<Long, Long> unread = unreadCounts(userId, p.getContent());
+
         // Page<UserChat> -> Page<ChatSummary> 로 변환 (서비스 안에서 DTO로 변환)
-        return p.map(uc -> {
-            Long chatId = uc.getChat().getId();
+        return p.map(uc -> summaries.get(uc.getChat().getId())
+                .withUnreadCount(unread.getOrDefault(uc.getChat().getId(), 0L)));
+    }
+
+    // 안읽음 수: Redis 해시에서 한 페이지를 한 번에 (HMGET).
+    // 값이 없는 방들은 GROUP BY 쿼리 1번으로 세고 파이프라인 1번으로 채워 둔다.
+    // 아직 flush 안 된 읽음 위치가 있는 방만 그 값으로 따로 센다 (드묾)
+    private Map<Long, Long> unreadCounts(Long userId, List<UserChat> page) {
+        List<Long> chatIds = page.stream().map(uc -> uc.getChat().getId()).toList();
+        try {
+            Map<Long, Long> unread = unreadStore.get(userId, chatIds);
+            List<UserChat> missing = page.stream().filter(uc -> !unread.containsKey(uc.getChat().getId())).toList();
+            if (missing.isEmpty()) return unread;
+
+            Map<Long, long[]> counted = new HashMap<>(); // chatId → [count, max(seq)]
+            for (Object[] r : messageRepo.countUnreadByChatIds(userId,
+                    missing.stream().map(uc -> uc.getChat().getId()).toList())) {
+                counted.put(((Number) r[0]).longValue(),
+                        new long[]{((Number) r[1]).longValue(), r[2] == null ? 0 : ((Number) r[2]).longValue()});
+            }
+            List<long[]> fill = new ArrayList<>(missing.size());
+            for (UserChat uc : missing) {
+                Long chatId = uc.getChat().getId();
+                Long dbRead = uc.getLastReadMessageId();
+                Long effective = readPointers.effective(userId, chatId, dbRead);
+                long[] c = effective != null && !effective.equals(dbRead)
+                        ? messageRepo.countUnreadAndSeq(chatId, userId, effective)
+                        : counted.getOrDefault(chatId, new long[]{0, 0});
+                fill.add(new long[]{userId, chatId, c[0], c[1]});
+                unread.put(chatId, c[0]);
+            }
+            unreadStore.setAll(fill);
+            return unread;
+        } catch (DataAccessException e) {
+            return Map.of(); // Redis 장애 시 0 으로 표시 (목록 자체는 보여준다)
+        }
+    }
 
-            // "가장 최신 메시지 1개" — 자바 필드명 createAt 기준으로 정렬된 메서드 사용
-            Message last = messageRepo
-                    .findTop1ByChatIdOrderByCreateAtDesc(chatId) // ← 여기 이름이 포인트!
-                    .orElse(null); // 없으면 null
+    // 캐시에 없는 방들의 요약을 DB 에서 만든다
+    // - 방 개수와 상관없이 "최신 메시지" 쿼리 1번 (예전: 방마다 findTop1... 1번씩 = N+1)
+    private Map<Long, ChatSummary> loadSummaries(Set<Long> chatIds, Map<Long, Chat> chats) {
+        Map<Long, Message> latest = new HashMap<>();
+        for (Message m : messageRepo.findLatestByChatIds(chatIds)) {
+            // 같은 시각 메시지가 여러 건이면 id 가 큰 쪽
+            latest.merge(m.getChat().getId(), m, (a, b) -> a.getId() >= b.getId() ? a : b);
+        }
+        Map<Long, long[]> members = memberCache.membersOf(chatIds); // 캐시에 없는 방들은 쿼리 1번
 
-            return new ChatSummary(
+        Map<Long, ChatSummary> result = new HashMap<>();
+        for (Long chatId : chatIds) {
+            Chat chat = chats.get(chatId);
+            Message last = latest.get(chatId); // 없으면 null
+
+            result.put(chatId, new ChatSummary(
                     chatId,
-                    uc.getChat().getType(),                     // 방 타입
-                    uc.getChat().getTitle(),                    // 방 제목
+                    chat.getType(),                             // 방 타입
+                    chat.getTitle(),                            // 방 제목
                     last != null ? last.getContent() : "",      // 최근 메시지 내용
                     last != null ? last.getCreateAt() : null,   // 최근 메시지 시간 (자바 필드명 createAt)
-                    0, // v1: 멤버 수는 추후 개선
-                    0  // v1: 미읽음 수는 추후 개선
-            );
-        });
+                    members.get(chatId).length,                 // 멤버 수
+                    0  // 안읽음 수는 유저마다 달라서 getMyChats 에서 붙인다
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * 채팅방 입장
+     * - 이미 멤버면 아무것도 하지 않는다(멱등).
+     * - 커밋 후 ChatMembershipChangedEvent 로 웹소켓 방 인덱스 등이 갱신된다.
+     */
+    @Transactional
+    public void joinChat(Long userId, Long chatId) {
+        if (userChatRepo.existsByUser_IdAndChat_Id(userId, chatId)) return;
+        Chat chat = chatRepo.findById(chatId)
+                .orElseThrow(() -> new IllegalArgumentException("채팅방 없음"));
+        User user = userRepo.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("유저 없음"));
+        userChatRepo.save(UserChat.builder().user(user).chat(chat).build());
+        eventPublisher.publishEvent(new ChatMembershipChangedEvent(chatId, userId, true));
+    }
+
+    /** 채팅방 퇴장 (멤버가 아니면 예외) */
+    @Transactional
+    public void leaveChat(Long userId, Long chatId) {
+        UserChat uc = userChatRepo.findByUser_IdAndChat_Id(userId, chatId)
+                .orElseThrow(() -> new IllegalArgumentException("채팅방 멤버가 아님"));
+        userChatRepo.delete(uc);
+        eventPublisher.publishEvent(new ChatMembershipChangedEvent(chatId, userId, false));
     }
 }
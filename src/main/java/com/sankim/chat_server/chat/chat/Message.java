@@ -3,6 +3,7 @@ package com.sankim.chat_server.chat.chat;
 import com.sankim.chat_server.common.BaseTimeEntity;
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 
 /**
  * 메시지 엔티티
@@ -20,6 +21,10 @@ import lombok.*;
                 // ✅ 왜 이 인덱스? "채팅방별 최신 메시지 순 페이징"이 가장 많이 호출됨
                 // ✅ 여기서는 DB 컬럼명 사용 (chat_id, create_at)
                 @Index(name = "idx_msg_chat_created", columnList = "chat_id, create_at")
+        },
+        uniqueConstraints = {
+                // 방 안에서 seq 는 유일 (발급기 오동작 시 최종 안전장치, 예전 메시지는 NULL)
+                @UniqueConstraint(name = "uk_msg_chat_seq", columnNames = {"chat_id", "seq"})
         }
 )
 @Getter
@@ -27,10 +32,11 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Message extends BaseTimeEntity {
+public class Message extends BaseTimeEntity implements Persistable<Long> {
 
+    // IDENTITY 대신 MessageIdGenerator 가 INSERT 전에 발급 (시간순 정렬, JDBC 배치 INSERT 가능)
+    // 예전 IDENTITY 로 만든 행은 작은 값이라, 새 id 가 항상 더 크다
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     // 어떤 방의 메시지인가?
@@ -38,6 +44,10 @@ public class Message extends BaseTimeEntity {
     @JoinColumn(name = "chat_id", nullable = false)
     private Chat chat;
 
+    // 방 안에서의 순번 (ChatSequenceAllocator 가 발급, 단조 증가 / 빈 번호 가능)
+    @Column(name = "seq")
+    private Long seq;
+
     // 누가 보냈나?
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
@@ -50,4 +60,23 @@ public class Message extends BaseTimeEntity {
     // 본문은 TEXT 컬럼
     @Column(nullable = false, columnDefinition = "text")
     private String content;
+
+    // id 를 직접 넣으면 Spring Data 가 "이미 있는 행" 으로 보고 merge(SELECT) 를 한다.
+    // 새로 만든 객체는 persist 로 가도록 저장/조회 이후에만 false 로 바꾼다.
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
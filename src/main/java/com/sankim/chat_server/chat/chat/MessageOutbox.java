@@ -0,0 +1,61 @@
+package com.sankim.chat_server.chat.chat;
+
+import com.sankim.chat_server.common.BaseTimeEntity;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * 트랜잭셔널 아웃박스: "Kafka 로 보내야 할 메시지" 를 메시지와 같은 트랜잭션에서 DB 에 적어 둔다.
+ *
+ * 왜?
+ * - 예전에는 @Transactional sendMessage 안에서 kafkaTemplate.send 를 했다.
+ *   브로커가 느리면 요청이 같이 느려지고, send 후 롤백되면 "DB 에 없는 메시지" 이벤트가 나갔다.
+ * - 이제 요청 스레드는 INSERT 1번만 더 하고, OutboxRelay 가 커밋된 행만 모아서 Kafka 로 보낸 뒤 지운다.
+ *
+ * - payload    : MessageResponse JSON
+ * - originNode : 메시지를 저장한 노드 (Kafka origin 헤더로 실어 그 노드가 중복 전달하지 않게 함)
+ *
+ * id 는 Message 와 같이 MessageIdGenerator 로 INSERT 전에 정한다.
+ * IDENTITY 면 Hibernate 가 JDBC 배치 INSERT 를 끄므로, 그룹 커밋 때 아웃박스만 행마다 INSERT 가 나갔다.
+ */
+@Entity
+@Table(name = "message_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageOutbox extends BaseTimeEntity implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    // Kafka 메시지 key (같은 방은 같은 파티션 → 순서 유지)
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "origin_node", length = 100)
+    private String originNode;
+
+    // id 를 직접 넣으므로 Message 와 같이 새 객체는 persist 로 가게 한다 (merge SELECT 방지)
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
@@ -31,6 +31,18 @@ public class ChatController {
         return java.util.Map.of("chatId", id, "message", "상세는 v2에서 강화");
     }
 
+    /** 채팅방 입장 : POST /api/chats/{id}/members */
+    @PostMapping("/{id}/members")
+    public void join(@RequestHeader("X-USER-ID") Long userId, @PathVariable Long id) {
+        chatService.joinChat(userId, id);
+    }
+
+    /** 채팅방 퇴장 : DELETE /api/chats/{id}/members */
+    @DeleteMapping("/{id}/members")
+    public void leave(@RequestHeader("X-USER-ID") Long userId, @PathVariable Long id) {
+        chatService.leaveChat(userId, id);
+    }
+
 }
 
 // redis cache 에 안읽음 정보를 저장해놓는게 좋겠다
@@ -2,6 +2,7 @@
 package com.sankim.chat_server.chat.chat.api;
 
 import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.api.dto.MessageSlice;
 import com.sankim.chat_server.chat.chat.api.dto.ReadUpToRequest;
 import com.sankim.chat_server.chat.chat.api.dto.SendMessageRequest;
 import com.sankim.chat_server.chat.chat.message.MessageService;
@@ -35,6 +36,32 @@ public class MessageController {
         return messageService.getMessages(userId, chatId, pageable);
     }
 
+    /**
+     * 커서 기반 히스토리 (무한 스크롤용). 위의 page/size 방식은 호환용으로 남겨 둔다.
+     * - 처음: cursor 없이 호출 → 최신 limit 건 + nextCursor
+     * - 더 과거: before=nextCursor, 놓친 최신 메시지: after=커서
+     */
+    @GetMapping("/messages/history")
+    public MessageSlice getHistory(
+            @RequestHeader("X-USER-ID") Long userId,
+            @RequestParam Long chatId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        if (limit <= 0 || limit > 100) limit = 50;
+        return messageService.getHistory(userId, chatId, before, after, limit);
+    }
+
+    /** 읽음 처리 : POST /api/chats/{chatId}/read (메모리에 모았다가 주기적으로 DB 에 반영) */
+    @PostMapping("/chats/{chatId}/read")
+    public void readUpTo(
+            @RequestHeader("X-USER-ID") Long userId,
+            @PathVariable Long chatId,
+            @RequestBody @Valid ReadUpToRequest req) {
+        readService.readUpTo(userId, chatId, req);
+    }
+
     @PostMapping("/messages")
     public MessageResponse sendMessage(
             @RequestHeader("X-USER-ID") Long userId,
@@ -9,4 +9,8 @@ public record ChatSummary(
         String lastMessagePreview, Instant lastMessageAt,
         int memberCount, long unreadCount
 ) {
+    /** 방 공통 요약(캐시 값)에 유저별 안읽음 수를 붙인다 */
+    public ChatSummary withUnreadCount(long unread) {
+        return new ChatSummary(chatId, type, title, lastMessagePreview, lastMessageAt, memberCount, unread);
+    }
 }
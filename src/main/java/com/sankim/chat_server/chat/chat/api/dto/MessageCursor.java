@@ -0,0 +1,34 @@
+package com.sankim.chat_server.chat.chat.api.dto;
+
+import java.time.Instant;
+
+/**
+ * 메시지 히스토리 커서 (keyset 페이지네이션용)
+ * - (createdAt, id) 쌍: createdAt 이 같은 메시지끼리도 id 로 순서가 정해진다.
+ * - 문자열 형태 "{epoch 마이크로초}_{id}" 로 주고받는다. (DB datetime(6) 정밀도와 맞춤)
+ */
+public record MessageCursor(Instant createdAt, Long id) {
+
+    public static MessageCursor of(MessageResponse m) {
+        return new MessageCursor(m.createdAt(), m.id());
+    }
+
+    /** @throws IllegalArgumentException 형식이 잘못된 경우 (→ 400) */
+    public static MessageCursor parse(String value) {
+        int sep = value == null ? -1 : value.indexOf('_');
+        if (sep <= 0) throw new IllegalArgumentException("잘못된 커서: " + value);
+        try {
+            long micros = Long.parseLong(value.substring(0, sep));
+            long id = Long.parseLong(value.substring(sep + 1));
+            Instant at = Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+            return new MessageCursor(at, id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 커서: " + value);
+        }
+    }
+
+    public String encode() {
+        long micros = createdAt.getEpochSecond() * 1_000_000L + createdAt.getNano() / 1_000;
+        return micros + "_" + id;
+    }
+}
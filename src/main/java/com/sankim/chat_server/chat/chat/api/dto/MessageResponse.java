@@ -2,8 +2,16 @@ package com.sankim.chat_server.chat.chat.api.dto;
 
 import java.time.Instant;
 
+/**
+ * 메시지 응답/브로드캐스트 DTO
+ * - seq: 방 안에서의 순번. 클라이언트는 이 값으로 정렬한다. (예전 메시지는 null)
+ * - seenCount: 이 메시지까지 읽은 멤버 수 (보낸 사람 포함). 조회 시점에 ReadCursorIndex 로 채운다.
+ */
 public record MessageResponse(
-        Long id, Long chatId, Long senderId, String contentType, String content,
+        Long id, Long chatId, Long seq, Long senderId, String contentType, String content,
         Instant createdAt, long seenCount
 ) {
+    public MessageResponse withSeenCount(long seen) {
+        return new MessageResponse(id, chatId, seq, senderId, contentType, content, createdAt, seen);
+    }
 }
@@ -0,0 +1,12 @@
+package com.sankim.chat_server.chat.chat.api.dto;
+
+import java.util.List;
+
+/**
+ * 커서 기반 메시지 목록 응답 (COUNT 쿼리 없음)
+ * - items     : 조회 방향 순서 (before/처음 = 최신순, after = 오래된순)
+ * - nextCursor: 같은 방향으로 더 가져올 때 넘길 커서 (items 가 비었으면 null)
+ * - hasMore   : 그 방향으로 메시지가 더 있는지
+ */
+public record MessageSlice(List<MessageResponse> items, String nextCursor, boolean hasMore) {
+}
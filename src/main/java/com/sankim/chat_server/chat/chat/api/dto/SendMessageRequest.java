@@ -2,11 +2,18 @@ package com.sankim.chat_server.chat.chat.api.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 public record SendMessageRequest(
         @NotNull Long chatId, // 어떤 방에 보낼지
-        @NotBlank String content, // 본문
-        String contentType // null 이면 TEXT로 처리
-        
+        @NotBlank @Size(max = MAX_CONTENT_LENGTH) String content, // 본문
+        String contentType, // null 이면 TEXT로 처리
+        @Size(max = 64) String clientMessageId // 클라이언트가 만든 id (선택). 같은 값으로 재전송하면 처음 결과를 돌려준다
 ) {
+    /** 본문 최대 글자 수 (REST / 웹소켓 공통) */
+    public static final int MAX_CONTENT_LENGTH = 10_000;
+
+    public SendMessageRequest(Long chatId, String content, String contentType) {
+        this(chatId, content, contentType, null);
+    }
 }
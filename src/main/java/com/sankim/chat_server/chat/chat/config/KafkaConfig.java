@@ -1,15 +1,21 @@
 package com.sankim.chat_server.chat.chat.config;
 
 import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.message.MessageResponseDeserializer;
+import com.sankim.chat_server.chat.chat.message.MessageResponseSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,40 +24,75 @@ import java.util.Map;
 @EnableKafka
 public class KafkaConfig {
 
+    /** 채팅 메시지 토픽 (key = chatId → 같은 방 메시지는 같은 파티션에서 순서 유지) */
+    public static final String CHAT_MESSAGES_TOPIC = "chat-messages";
+    /** 메시지를 저장한(로컬 브로드캐스트를 이미 한) 노드 id 헤더 */
+    public static final String ORIGIN_NODE_HEADER = "chat-origin-node";
+
     // Producer: key/value 직렬화 지정
+    // - 값은 기본 바이너리(MessageResponseCodec). json 은 예전 노드가 섞여 있는 동안 쓰는 호환 모드
+    // - 압축은 배치 단위라 linger/batch-size 로 배치가 모이게 해 둔다
     @Bean
-    public ProducerFactory<String, MessageResponse> producerFactory() {
+    public ProducerFactory<String, MessageResponse> producerFactory(
+            @Value("${chat.kafka.producer.value-format:binary}") String valueFormat,
+            @Value("${chat.kafka.producer.compression-type:lz4}") String compressionType,
+            @Value("${chat.kafka.producer.linger-ms:5}") int lingerMs,
+            @Value("${chat.kafka.producer.batch-size:65536}") int batchSize) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-                org.springframework.kafka.support.serializer.JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "json".equalsIgnoreCase(valueFormat)
+                ? org.springframework.kafka.support.serializer.JsonSerializer.class
+                : MessageResponseSerializer.class);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, MessageResponse> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, MessageResponse> kafkaTemplate(ProducerFactory<String, MessageResponse> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 
     // Consumer: key/value 역직렬화 지정
+    // 클라이언트 메트릭(records-lag-max 등 consumer lag 포함)을 Micrometer 로 내보낸다
     @Bean
-    public ConsumerFactory<String, MessageResponse> consumerFactory() {
+    public ConsumerFactory<String, MessageResponse> consumerFactory(
+            MeterRegistry meterRegistry,
+            @Value("${chat.kafka.consumer.max-poll-records:500}") int maxPollRecords) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "chat-consumer");
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "chat-consumer"); // 리스너에서 노드별 group 으로 덮어씀
+        // 새 노드(새 consumer group)는 과거 메시지를 다시 뿌리지 않고 지금부터 받는다
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-                org.springframework.kafka.support.serializer.JsonDeserializer.class);
-        props.put(org.springframework.kafka.support.serializer.JsonDeserializer.TRUSTED_PACKAGES, "*");
-        return new DefaultKafkaConsumerFactory<>(props);
+        // 바이너리 / 예전 JSON 레코드 둘 다 읽는다 (첫 바이트로 구분)
+        // ErrorHandlingDeserializer 로 감싼다: 깨진/모르는 버전 레코드가 poll 에서 예외를 내면 파티션이 그 자리에서 멈춘다.
+        // 감싸 두면 그 레코드는 value=null + 예외 헤더로 넘어오고, KafkaMessageListener 가 로그/메트릭만 남기고 건너뛴다.
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, MessageResponseDeserializer.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        DefaultKafkaConsumerFactory<String, MessageResponse> factory = new DefaultKafkaConsumerFactory<>(props);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
+    /**
+     * 배치 리스너 + 파티션 병렬
+     * - concurrency 개의 consumer 스레드가 파티션을 나눠 맡는다 (파티션 수보다 크게 잡아도 남는 스레드는 논다).
+     * - poll 1번에 받은 레코드를 통째로 리스너에 넘기고, 리스너가 전달을 끝내고 돌아오면 그 배치의 오프셋을 커밋한다.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, MessageResponse> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, MessageResponse> kafkaListenerContainerFactory(
+            ConsumerFactory<String, MessageResponse> consumerFactory,
+            @Value("${chat.kafka.consumer.concurrency:3}") int concurrency) {
         ConcurrentKafkaListenerContainerFactory<String, MessageResponse> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
         return factory;
     }
 }
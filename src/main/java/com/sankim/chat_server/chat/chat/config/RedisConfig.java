@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -30,8 +31,17 @@ public class RedisConfig {
         return template;
     }
 
+    // Redis pub/sub 구독 컨테이너 (노드 간 캐시 무효화 등)
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory cf) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(cf);
+        return container;
+    }
+
+    // 메시지 목록은 RecentMessageCache(방별 최근 N건 링), 방 요약은 ChatSummaryCache(L1 + Redis L2)가 맡는다
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("chatMessages", "chatSummaries");
+        return new ConcurrentMapCacheManager();
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.sankim.chat_server.chat.chat.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled 작업(아웃박스 릴레이 등)을 켠다
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
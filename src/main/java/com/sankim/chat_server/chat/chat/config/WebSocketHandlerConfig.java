@@ -16,6 +16,14 @@ public class WebSocketHandlerConfig implements WebSocketConfigurer {
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // 순수 WebSocket 클라이언트용 (ws://host/ws-handler?userId=1)
+        // - Sec-WebSocket-Protocol 로 chat.bin.v1(바이너리) / chat.json.v1(JSON)을 협상할 수 있다.
+        // - SockJS 는 텍스트 프레임만 지원해서 바이너리 서브프로토콜은 이 경로로만 가능하다.
+        registry.addHandler(chatWebSocketHandler, "/ws-handler")
+                .addInterceptors(new WebSocketHandshakeInterceptor())
+                .setAllowedOriginPatterns("http://localhost:5173", "http://127.0.0.1:5173");
+
+        // SockJS 클라이언트용 (/ws-handler/info, /ws-handler/{server}/{session}/... 로 매핑됨, JSON 전용)
         registry.addHandler(chatWebSocketHandler, "/ws-handler")
                 .addInterceptors(new WebSocketHandshakeInterceptor())
                 .setAllowedOriginPatterns("http://localhost:5173", "http://127.0.0.1:5173")
@@ -0,0 +1,199 @@
+package com.sankim.chat_server.chat.chat.member;
+
+import com.sankim.chat_server.chat.chat.repository.UserChatRepository;
+import com.sankim.chat_server.chat.chat.support.CacheInvalidationBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 채팅방 멤버 캐시: chatId → 정렬된 멤버 userId 배열(long[]).
+ *
+ * 왜?
+ * - 메시지 전송/조회마다 existsByUser_IdAndChat_Id + Chat/User findById 로 SELECT 가 3번 나갔다.
+ * - 멤버 구성은 거의 안 바뀌고 읽기는 매우 잦다 → 메모리에 들고 이진 탐색으로 답한다.
+ *   Long 객체 Set 대신 long[] 이라 멤버 1명당 8바이트.
+ *
+ * 동작
+ * - 처음 물어볼 때 DB 에서 읽는다 (여러 방을 한 번에 물으면 쿼리 1번).
+ * - 입장/퇴장 커밋 후 invalidate → 무효화 버스로 모든 노드에서 지운다. 다음 조회 때 다시 읽는다.
+ * - 읽는 사이 무효화가 있었으면(버전 비교) 읽은 값을 캐시에 넣지 않는다.
+ * - 방 개수 / 전체 멤버 id 수 한도 + TTL. 넘치면 오래 안 쓴 방부터 한도의 90% 까지 버린다.
+ *
+ * 동시성
+ * - 모든 전송/조회가 지나가는 경로라 전역 락을 두지 않는다: ConcurrentHashMap 으로 읽고,
+ *   마지막 사용 시각은 1초 단위로만 갱신한다 (근사 LRU).
+ * - 한도를 넘기면 한 스레드만 전체를 훑어 정리한다. 정리하는 동안 잠깐 한도를 넘을 수 있다.
+ *
+ * 돌려주는 long[] 은 캐시가 들고 있는 배열 그대로이므로 수정하면 안 된다.
+ */
+@Component
+public class ChatMemberCache {
+
+    public static final String NAME = "chatMembers";
+    private static final long[] EMPTY = new long[0];
+    private static final int VERSION_STRIPES = 1024;
+
+    private static final long TOUCH_MILLIS = 1000;
+
+    private static final class Entry {
+        final long[] members;
+        final long loadedAt;
+        volatile long lastUsed;
+
+        Entry(long[] members, long loadedAt) {
+            this.members = members;
+            this.loadedAt = loadedAt;
+            this.lastUsed = loadedAt;
+        }
+    }
+
+    private final UserChatRepository userChatRepo;
+    private final CacheInvalidationBus bus;
+    private final int maxChats;
+    private final long maxIds;
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<Long, Entry> map = new ConcurrentHashMap<>(256);
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong totalIds = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ChatMemberCache(UserChatRepository userChatRepo,
+                           CacheInvalidationBus bus,
+                           MeterRegistry meterRegistry,
+                           @Value("${chat.cache.members.max-chats:50000}") int maxChats,
+                           @Value("${chat.cache.members.max-ids:5000000}") long maxIds,
+                           @Value("${chat.cache.members.ttl-seconds:600}") long ttlSeconds) {
+        this.userChatRepo = userChatRepo;
+        this.bus = bus;
+        this.maxChats = maxChats;
+        this.maxIds = maxIds;
+        this.ttlMillis = ttlSeconds * 1000L;
+
+        this.hits = meterRegistry.counter("chat.cache.requests", "cache", NAME, "tier", "l1", "result", "hit");
+        this.misses = meterRegistry.counter("chat.cache.requests", "cache", NAME, "tier", "l1", "result", "miss");
+        this.evictions = meterRegistry.counter("chat.cache.evictions", "cache", NAME, "tier", "l1", "reason", "size");
+        Gauge.builder("chat.cache.size", map, Map::size)
+                .tag("cache", NAME)
+                .tag("tier", "l1")
+                .register(meterRegistry);
+
+        bus.subscribe(NAME, key -> evictLocal(Long.valueOf(key)));
+    }
+
+    public boolean isMember(Long chatId, Long userId) {
+        return userId != null && Arrays.binarySearch(members(chatId), userId) >= 0;
+    }
+
+    public int memberCount(Long chatId) {
+        return members(chatId).length;
+    }
+
+    /** 정렬된 멤버 id (방이 없으면 빈 배열) */
+    public long[] members(Long chatId) {
+        return membersOf(List.of(chatId)).get(chatId);
+    }
+
+    /** 여러 방의 멤버. 캐시에 없는 방들은 쿼리 1번으로 읽는다 */
+    public Map<Long, long[]> membersOf(Collection<Long> chatIds) {
+        Map<Long, long[]> result = new HashMap<>();
+        Map<Long, Long> missing = new HashMap<>(); // chatId → 읽기 전 버전
+        long now = System.currentTimeMillis();
+        for (Long chatId : chatIds) {
+            Entry e = map.get(chatId);
+            if (e != null && now - e.loadedAt > ttlMillis) {
+                if (map.remove(chatId, e)) totalIds.addAndGet(-e.members.length);
+                e = null;
+            }
+            if (e != null) {
+                hits.increment();
+                if (now - e.lastUsed > TOUCH_MILLIS) e.lastUsed = now;
+                result.put(chatId, e.members);
+            } else {
+                misses.increment();
+                missing.put(chatId, versions.get(stripe(chatId)));
+            }
+        }
+        if (missing.isEmpty()) return result;
+
+        Map<Long, List<Long>> loaded = new HashMap<>();
+        for (Object[] row : userChatRepo.findMembersByChatIds(missing.keySet())) {
+            loaded.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Long) row[1]);
+        }
+        long loadedAt = System.currentTimeMillis();
+        for (Map.Entry<Long, Long> m : missing.entrySet()) {
+            Long chatId = m.getKey();
+            long[] members = toSortedArray(loaded.get(chatId));
+            result.put(chatId, members);
+            // 버전 확인과 넣기를 같은 키 잠금 안에서 한다. evictLocal 은 버전을 올린 뒤 지우므로
+            // 확인 후 무효화가 오면 그 remove 가 이 값을 지운다
+            map.compute(chatId, (k, prev) -> {
+                if (versions.get(stripe(k)) != m.getValue()) return prev; // 읽는 사이 입장/퇴장 → 캐시 안 함
+                totalIds.addAndGet(members.length - (prev == null ? 0 : prev.members.length));
+                return new Entry(members, loadedAt);
+            });
+        }
+        evictIfNeeded();
+        return result;
+    }
+
+    /** 입장/퇴장 커밋 후: 모든 노드에서 이 방 멤버 캐시를 지운다 */
+    public void invalidate(Long chatId) {
+        bus.publish(NAME, chatId);
+    }
+
+    private void evictLocal(Long chatId) {
+        versions.incrementAndGet(stripe(chatId));
+        Entry e = map.remove(chatId);
+        if (e != null) totalIds.addAndGet(-e.members.length);
+    }
+
+    // 한도를 넘으면 한 스레드만 전체를 훑어 오래 안 쓴 방부터 한도의 90% 까지 버린다 (매 put 마다 훑지 않도록 여유를 둔다)
+    private void evictIfNeeded() {
+        if (!overLimit(maxChats, maxIds) || !evicting.compareAndSet(false, true)) return;
+        try {
+            List<Map.Entry<Long, Entry>> byAge = new ArrayList<>(map.entrySet());
+            byAge.sort(Comparator.comparingLong(en -> en.getValue().lastUsed));
+            int targetChats = (int) (maxChats * 0.9);
+            long targetIds = (long) (maxIds * 0.9);
+            for (Map.Entry<Long, Entry> en : byAge) {
+                if (!overLimit(targetChats, targetIds)) break;
+                if (map.remove(en.getKey(), en.getValue())) {
+                    totalIds.addAndGet(-en.getValue().members.length);
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private boolean overLimit(int chats, long ids) {
+        return map.size() > chats || totalIds.get() > ids;
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) return EMPTY;
+        long[] arr = new long[ids.size()];
+        for (int i = 0; i < arr.length; i++) arr[i] = ids.get(i);
+        Arrays.sort(arr);
+        return arr;
+    }
+
+    private static int stripe(Long chatId) {
+        return (int) Math.floorMod(chatId, (long) VERSION_STRIPES);
+    }
+}
@@ -0,0 +1,4 @@
+package com.sankim.chat_server.chat.chat.member;
+
+// 채팅방 입장/퇴장이 커밋되었음을 알리는 이벤트 (세션 인덱스, 캐시 등이 구독)
+public record ChatMembershipChangedEvent(Long chatId, Long userId, boolean joined) {}
@@ -0,0 +1,55 @@
+package com.sankim.chat_server.chat.chat.member;
+
+import com.sankim.chat_server.chat.chat.support.CacheInvalidationBus;
+import com.sankim.chat_server.chat.chat.ws.RoomSessionRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 입장/퇴장이 커밋된 뒤 모든 노드의 멤버 캐시를 무효화하고, 모든 노드의 방별 세션 인덱스를 갱신하는 리스너.
+ *
+ * 왜 모든 노드?
+ * - 그 유저의 세션은 다른 노드에 붙어 있을 수 있다. 이 노드 인덱스만 고치면
+ *   입장한 유저는 다른 노드 세션에서 방 메시지를 못 받고, 퇴장한 유저는 재접속 전까지 계속 받는다.
+ * - CacheInvalidationBus 로 "chatId,userId,join|leave" 를 발행 → 자기 노드 포함 모든 노드가 join/leave 한다.
+ *   (세션이 없는 노드에서는 join/leave 가 아무 일도 안 한다)
+ */
+@Slf4j
+@Component
+public class MembershipChangeListener {
+
+    private static final String NAME = "roomMembership";
+
+    private final RoomSessionRegistry sessionRegistry;
+    private final ChatMemberCache memberCache;
+    private final CacheInvalidationBus bus;
+
+    public MembershipChangeListener(RoomSessionRegistry sessionRegistry,
+                                    ChatMemberCache memberCache,
+                                    CacheInvalidationBus bus) {
+        this.sessionRegistry = sessionRegistry;
+        this.memberCache = memberCache;
+        this.bus = bus;
+        bus.subscribe(NAME, this::onBusMessage);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMembershipChanged(ChatMembershipChangedEvent event) {
+        memberCache.invalidate(event.chatId());
+        bus.publish(NAME, event.chatId() + "," + event.userId() + "," + (event.joined() ? "join" : "leave"));
+    }
+
+    private void onBusMessage(String key) {
+        String[] parts = key.split(",");
+        if (parts.length != 3) {
+            log.warn("알 수 없는 멤버십 메시지 {}", key);
+            return;
+        }
+        Long chatId = Long.valueOf(parts[0]);
+        Long userId = Long.valueOf(parts[1]);
+        if ("join".equals(parts[2])) sessionRegistry.join(userId, chatId);
+        else sessionRegistry.leave(userId, chatId);
+    }
+}
@@ -0,0 +1,94 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 채팅방별 메시지 순번(seq) 발급기.
+ *
+ * 왜?
+ * - 예전에는 방마다 Redisson 분산락(chatLock:{chatId})을 잡고 INSERT + Kafka 전송까지 했다.
+ *   메시지 1건당 Redis 왕복 2번(lock/unlock) + 같은 방 발신자가 전부 줄을 서야 했다.
+ * - 순서는 "락으로 직렬화"가 아니라 "원자적으로 증가하는 번호"로 보장하면 된다.
+ *   Redis INCR 은 원자적이라 여러 노드가 동시에 불러도 방마다 1씩 증가하는 번호가 나온다. (왕복 1번, 락 없음)
+ *
+ * 주의
+ * - seq 는 단조 증가하지만 빈 번호가 생길 수 있다 (번호를 받은 뒤 트랜잭션이 롤백된 경우).
+ * - Redis 키가 없을 때(첫 사용, Redis 초기화/eviction)는 DB 의 max(seq) 이상으로 맞춘 뒤 증가시킨다. (중복 방지)
+ *   평소 경로도 "키가 있을 때만 INCR" 스크립트라, 키가 사라진 순간 동시에 들어온 호출자는 전부(어느 노드든)
+ *   DB 값으로 맞추는 경로를 탄다. 예전처럼 INCR 결과가 1 인 한 명만 맞추면, 2, 3 을 받은 다른 호출자는
+ *   이미 있는 번호를 받아 uk_msg_chat_seq 에서 실패했다.
+ *   DB 에는 (chat_id, seq) 유니크 제약이 최종 안전장치로 걸려 있다.
+ * - DB 값으로 맞출 때는 커밋된 max(seq) 만 보인다. 다른 노드가 이미 받아 갔지만 아직 커밋 전인 번호는
+ *   다시 나갈 수 있다 → 전송 쪽(MessageService)이 uk_msg_chat_seq 충돌을 받으면 resync 후 1번만 다시 저장한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatSequenceAllocator {
+
+    private static final String KEY_PREFIX = "chat:seq:";
+    private static final String SEQ_CONSTRAINT = "uk_msg_chat_seq";
+    private static final long MISSING = -1L;
+
+    // 키가 있을 때만 INCR, 없으면 -1 (왕복 1번)
+    private static final RedisScript<Long> INCR_IF_EXISTS = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCR', KEYS[1]) end
+            return -1
+            """, Long.class);
+
+    // 현재 값이 floor 보다 작으면 floor 로 올린 뒤 INCR (원자적)
+    private static final RedisScript<Long> SEED_AND_INCR = new DefaultRedisScript<>("""
+            local cur = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local floor = tonumber(ARGV[1])
+            if cur < floor then redis.call('SET', KEYS[1], floor) end
+            return redis.call('INCR', KEYS[1])
+            """, Long.class);
+
+    // 현재 값이 floor 보다 작을 때만 floor 로 올린다 (내리지 않음)
+    private static final RedisScript<Long> RAISE_TO = new DefaultRedisScript<>("""
+            local cur = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local floor = tonumber(ARGV[1])
+            if cur < floor then redis.call('SET', KEYS[1], floor) return floor end
+            return cur
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final MessageRepository messageRepo;
+
+    /** chatId 방의 다음 seq */
+    public long next(Long chatId) {
+        String key = KEY_PREFIX + chatId;
+        Long v = redis.execute(INCR_IF_EXISTS, List.of(key));
+        if (v == null || v == MISSING) return seedAndIncrement(chatId, key); // 첫 사용이거나 Redis 에서 키가 사라졌다
+        return v;
+    }
+
+    // 동시에 여러 호출자가 와도 안전: 스크립트가 "floor 보다 작을 때만 올리고 INCR" 이라 각자 다른 번호를 받는다
+    private long seedAndIncrement(Long chatId, String key) {
+        Long max = messageRepo.findMaxSeqByChatId(chatId);
+        long floor = max == null ? 0L : max;
+        return redis.execute(SEED_AND_INCR, List.of(key), String.valueOf(floor));
+    }
+
+    /** seq 충돌 뒤: 방 카운터를 지금 DB 의 max(seq) 이상으로 올린다. 충돌한 행은 이미 커밋돼 있으므로 다음 번호는 그 뒤다 */
+    public void resync(Long chatId) {
+        Long max = messageRepo.findMaxSeqByChatId(chatId);
+        redis.execute(RAISE_TO, List.of(KEY_PREFIX + chatId), String.valueOf(max == null ? 0L : max));
+    }
+
+    /** (chat_id, seq) 유니크 제약 위반인지 (원인 체인의 메시지에 제약 이름이 들어 있다) */
+    public static boolean isSeqConflict(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            String msg = t.getMessage();
+            if (msg != null && msg.toLowerCase().contains(SEQ_CONSTRAINT)) return true;
+        }
+        return false;
+    }
+}
@@ -1,19 +1,140 @@
 package com.sankim.chat_server.chat.chat.message;
 
 import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.config.KafkaConfig;
+import com.sankim.chat_server.chat.chat.support.NodeIdentity;
 import com.sankim.chat_server.chat.chat.ws.ChatWebSocketHandler;
-import lombok.RequiredArgsConstructor;
+import com.sankim.chat_server.chat.chat.ws.DeliveryPath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 노드 간 메시지 전달 경로.
+ * - 노드마다 consumer group 이 달라서(NodeIdentity.consumerGroup) 모든 노드가 모든 메시지를 받는다.
+ * - 각 노드는 자기에게 붙은 방 멤버 세션에만 전달한다. (ChatWebSocketHandler 의 방 인덱스)
+ * - 메시지를 저장한 노드는 이미 커밋 직후 MessageBroadcastListener 로 전달했으므로,
+ *   origin 헤더가 내 노드 id 면 건너뛴다. (중복 전송 방지)
+ *
+ * 배치 처리
+ * - poll 1번 분량을 받아 방(key = chatId) 별로 묶는다. 한 묶음 안은 받은 순서 그대로 (= 파티션 순서).
+ * - 방이 여러 개면 묶음들을 fanout 스레드에 나눠 동시에 전달하고, 전부 끝나면 돌아간다 → 그 뒤 배치 오프셋 커밋.
+ * - 전달은 세션 큐에 넣기만 하므로 한 방 실패가 배치 전체를 다시 받게 하지 않는다 (로그만 남김).
+ * - 읽을 수 없는 레코드(ErrorHandlingDeserializer 가 value=null + 예외 헤더로 넘김)는 로그와
+ *   chat.kafka.consumer.poison 만 남기고 건너뛴다 → 오프셋이 넘어가서 파티션이 멈추지 않는다.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class KafkaMessageListener {
     private final ChatWebSocketHandler chatWebSocketHandler;
+    private final NodeIdentity nodeIdentity;
+    private final RecentMessageCache recentCache;
+    private final ExecutorService fanout;
+
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchChats;
+    private final Timer batchTimer;
+    private final Counter poison;
+
+    public KafkaMessageListener(ChatWebSocketHandler chatWebSocketHandler,
+                                NodeIdentity nodeIdentity,
+                                RecentMessageCache recentCache,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.kafka.consumer.fanout-threads:4}") int fanoutThreads) {
+        this.chatWebSocketHandler = chatWebSocketHandler;
+        this.nodeIdentity = nodeIdentity;
+        this.recentCache = recentCache;
+        AtomicInteger seq = new AtomicInteger();
+        this.fanout = Executors.newFixedThreadPool(fanoutThreads, r -> {
+            Thread t = new Thread(r, "kafka-fanout-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.batchSize = DistributionSummary.builder("chat.kafka.consumer.batch.size")
+                .description("poll 1번에 받은 레코드 수")
+                .register(meterRegistry);
+        this.batchChats = DistributionSummary.builder("chat.kafka.consumer.batch.chats")
+                .description("배치 1개에 들어 있던 방 수 (= 병렬로 처리한 묶음 수)")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("chat.kafka.consumer.batch.duration")
+                .description("배치 1개 전달에 걸린 시간")
+                .register(meterRegistry);
+        this.poison = meterRegistry.counter("chat.kafka.consumer.poison");
+    }
+
+    @KafkaListener(topics = KafkaConfig.CHAT_MESSAGES_TOPIC, groupId = "#{@nodeIdentity.consumerGroup()}")
+    public void listen(List<ConsumerRecord<String, MessageResponse>> records) {
+        batchSize.record(records.size());
+        Map<String, List<MessageResponse>> byChat = new LinkedHashMap<>();
+        for (ConsumerRecord<String, MessageResponse> record : records) {
+            if (isFromThisNode(record)) continue;
+            MessageResponse dto = record.value();
+            if (dto == null) {
+                if (record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+                    poison.increment();
+                    log.error("읽을 수 없는 레코드 건너뜀 partition={} offset={}", record.partition(), record.offset());
+                }
+                continue;
+            }
+            String key = record.key() != null ? record.key() : String.valueOf(dto.chatId());
+            byChat.computeIfAbsent(key, k -> new ArrayList<>()).add(dto);
+        }
+        if (byChat.isEmpty()) return;
+        batchChats.record(byChat.size());
+
+        batchTimer.record(() -> {
+            if (byChat.size() == 1) {
+                deliver(byChat.values().iterator().next());
+                return;
+            }
+            List<CompletableFuture<Void>> pending = new ArrayList<>(byChat.size());
+            for (List<MessageResponse> chatMessages : byChat.values()) {
+                pending.add(CompletableFuture.runAsync(() -> deliver(chatMessages), fanout));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        fanout.shutdown();
+    }
+
+    // 한 방의 메시지들을 순서대로
+    private void deliver(List<MessageResponse> chatMessages) {
+        for (MessageResponse dto : chatMessages) {
+            try {
+                recentCache.append(dto); // 다른 노드에서 저장된 메시지도 이 노드의 최근 메시지 링에 반영
+                chatWebSocketHandler.broadcastMessage(dto, DeliveryPath.KAFKA);
+            } catch (Exception e) {
+                log.error("Kafka 메시지 전달 실패 chatId={} id={}", dto.chatId(), dto.id(), e);
+            }
+        }
+    }
 
-    @KafkaListener(topics = "chat-messages", groupId = "chat-consumer")
-    public void listen(MessageResponse dto) {
-        // Kafka로 받은 메시지를 웹소켓 브로드캐스트
-        // chatWebSocketHandler.broadcastMessage(dto);
+    private boolean isFromThisNode(ConsumerRecord<String, MessageResponse> record) {
+        Header origin = record.headers().lastHeader(KafkaConfig.ORIGIN_NODE_HEADER);
+        return origin != null
+                && nodeIdentity.nodeId().equals(new String(origin.value(), StandardCharsets.UTF_8));
     }
 }
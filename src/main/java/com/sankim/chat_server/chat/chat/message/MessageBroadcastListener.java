@@ -13,9 +13,11 @@ import org.springframework.transaction.event.TransactionalEventListener;
 @RequiredArgsConstructor
 public class MessageBroadcastListener {
     private final ChatWebSocketHandler chatWebSocketHandler;
+    private final RecentMessageCache recentCache;
 
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onMessageCreated(MessageCreatedEvent event) {
+        recentCache.append(event.dto());
         chatWebSocketHandler.broadcastMessage(event.dto());
     }
 }
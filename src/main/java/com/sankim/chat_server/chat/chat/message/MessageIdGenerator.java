@@ -0,0 +1,13 @@
+package com.sankim.chat_server.chat.chat.message;
+
+/**
+ * 메시지 id 발급기.
+ * - DB(IDENTITY)가 아니라 애플리케이션에서 INSERT 전에 id 를 정한다.
+ *   → INSERT 를 JDBC 배치로 묶을 수 있고, flush 전에 MessageResponse 를 만들 수 있다.
+ * - 기본 구현은 SnowflakeMessageIdGenerator. 다른 방식으로 바꾸려면 이 인터페이스의 빈을 교체하면 된다.
+ */
+public interface MessageIdGenerator {
+
+    /** 노드 안에서 단조 증가하고, 노드끼리 겹치지 않는 id */
+    long nextId();
+}
@@ -0,0 +1,96 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.support.BinaryReader;
+import com.sankim.chat_server.chat.chat.support.BinaryWriter;
+import com.sankim.chat_server.chat.chat.support.ContentTypeCodes;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.time.Instant;
+
+/**
+ * chat-messages 토픽 값(MessageResponse) 바이너리 포맷.
+ *
+ * 왜?
+ * - Spring JsonSerializer 는 레코드마다 필드명 + 타입 헤더 + ISO 시간 문자열을 싣고, 읽을 때 리플렉션으로 채운다.
+ *   필드 순서를 고정하고 숫자를 varint 로 쓰면 크기도 CPU 도 훨씬 적다.
+ *
+ * 포맷 (version 1)
+ *   version(1B) flags(1B)
+ *   id, chatId, [seq], senderId          : varint   (seq 는 flags 에 있을 때만)
+ *   contentType                          : 1바이트 코드 (ContentTypeCodes, 웹소켓 바이너리 프레임과 같은 테이블)
+ *   content                              : varint(길이) + UTF-8
+ *   [createdAt]                          : zigzag(epochSecond), varint(nano)   (flags 에 있을 때만)
+ *   seenCount                            : varint
+ *
+ * 호환
+ * - 필드를 추가할 때는 version 을 올리고 decode 에 분기를 추가한다. (읽는 쪽을 먼저 배포)
+ * - 첫 바이트가 '{' 면 예전 JSON 레코드로 보고 JSON 으로 읽는다 → 배포 중 섞여 있어도 읽힌다.
+ */
+public final class MessageResponseCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int FLAG_SEQ = 1;
+    private static final int FLAG_CREATED_AT = 1 << 1;
+
+    private static final ObjectMapper JSON = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private MessageResponseCodec() {
+    }
+
+    public static byte[] encode(MessageResponse m) {
+        if (m.id() == null || m.chatId() == null || m.senderId() == null) {
+            throw new SerializationException("id/chatId/senderId 가 없는 메시지는 보낼 수 없음");
+        }
+        String content = m.content() == null ? "" : m.content();
+        BinaryWriter w = new BinaryWriter(40 + content.length() * 3);
+        int flags = (m.seq() != null ? FLAG_SEQ : 0) | (m.createdAt() != null ? FLAG_CREATED_AT : 0);
+        w.writeByte(VERSION).writeByte(flags).writeVarLong(m.id()).writeVarLong(m.chatId());
+        if (m.seq() != null) w.writeVarLong(m.seq());
+        w.writeVarLong(m.senderId());
+        ContentTypeCodes.write(w, m.contentType());
+        w.writeString(content);
+        if (m.createdAt() != null) {
+            w.writeZigZag(m.createdAt().getEpochSecond()).writeVarLong(m.createdAt().getNano());
+        }
+        w.writeVarLong(m.seenCount());
+        return w.toByteArray();
+    }
+
+    public static MessageResponse decode(byte[] data) {
+        if (data == null || data.length == 0) return null;
+        if (data[0] == '{') return decodeJson(data);
+        try {
+            BinaryReader r = new BinaryReader(data);
+            int version = r.readByte();
+            if (version != VERSION) throw new SerializationException("지원하지 않는 메시지 포맷 버전: " + version);
+            int flags = r.readByte();
+            long id = r.readVarLong();
+            long chatId = r.readVarLong();
+            Long seq = (flags & FLAG_SEQ) != 0 ? r.readVarLong() : null;
+            long senderId = r.readVarLong();
+            String contentType = ContentTypeCodes.read(r);
+            String content = r.readString();
+            Instant createdAt = (flags & FLAG_CREATED_AT) != 0
+                    ? Instant.ofEpochSecond(r.readZigZag(), r.readVarLong())
+                    : null;
+            long seenCount = r.readVarLong();
+            return new MessageResponse(id, chatId, seq, senderId, contentType, content, createdAt, seenCount);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new SerializationException("메시지 레코드 디코딩 실패", e);
+        }
+    }
+
+    private static MessageResponse decodeJson(byte[] data) {
+        try {
+            return JSON.readValue(data, MessageResponse.class);
+        } catch (Exception e) {
+            throw new SerializationException("JSON 메시지 레코드 디코딩 실패", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/** chat-messages 토픽 값 역직렬화. 바이너리 / 예전 JSON 레코드 둘 다 읽는다 (MessageResponseCodec) */
+public class MessageResponseDeserializer implements Deserializer<MessageResponse> {
+
+    @Override
+    public MessageResponse deserialize(String topic, byte[] data) {
+        return MessageResponseCodec.decode(data);
+    }
+}
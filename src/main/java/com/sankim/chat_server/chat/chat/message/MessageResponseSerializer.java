@@ -0,0 +1,13 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import org.apache.kafka.common.serialization.Serializer;
+
+/** chat-messages 토픽 값 직렬화 (포맷은 MessageResponseCodec) */
+public class MessageResponseSerializer implements Serializer<MessageResponse> {
+
+    @Override
+    public byte[] serialize(String topic, MessageResponse data) {
+        return data == null ? null : MessageResponseCodec.encode(data);
+    }
+}
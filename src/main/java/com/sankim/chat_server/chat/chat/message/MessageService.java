@@ -1,20 +1,32 @@
 package com.sankim.chat_server.chat.chat.message;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sankim.chat_server.chat.chat.*;
 import com.sankim.chat_server.chat.chat.api.dto.*;
+import com.sankim.chat_server.chat.chat.member.ChatMemberCache;
+import com.sankim.chat_server.chat.chat.read.ReadCursorIndex;
 import com.sankim.chat_server.chat.chat.repository.*;
+import com.sankim.chat_server.chat.chat.support.NodeIdentity;
+import com.sankim.chat_server.chat.chat.support.SendPipelineMetrics;
+import com.sankim.chat_server.chat.chat.support.SendPipelineMetrics.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -22,63 +34,226 @@ public class MessageService {
     private final MessageRepository messageRepo;
     private final ChatRepository chatRepo;
     private final UserRepository userRepo;
-    private final UserChatRepository userChatRepo;
     private final ApplicationEventPublisher eventPublisher;
-    private final RedissonClient redissonClient;
-    private final KafkaTemplate<String, MessageResponse> kafkaTemplate;
+    private final ChatSequenceAllocator sequenceAllocator;
+    private final MessageOutboxRepository outboxRepo;
+    private final ObjectMapper objectMapper;
+    private final NodeIdentity nodeIdentity;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final MessageIdGenerator idGenerator;
+    private final RecentMessageCache recentCache;
+    private final ChatMemberCache memberCache;
+    private final ReadCursorIndex cursorIndex;
+    private final SendDeduplicator dedup;
+    private final SendPipelineMetrics pipelineMetrics;
 
-    @Transactional
-    @CacheEvict(value = "chatMessages", key = "#req.chatId() + ':' + '*'", allEntries = true)
+    // 그룹 커밋 모드 (기본 꺼짐: 요청마다 트랜잭션 1개)
+    @Value("${chat.message.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+    @Value("${chat.message.group-commit.queue-capacity:10000}")
+    private int groupCommitCapacity;
+    @Value("${chat.message.group-commit.max-batch:200}")
+    private int groupCommitMaxBatch;
+    @Value("${chat.message.group-commit.max-wait-ms:5}")
+    private long groupCommitMaxWaitMs;
+    @Value("${chat.message.group-commit.writers:2}")
+    private int groupCommitWriters;
+    @Value("${chat.message.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    private MessageWriteBatcher batcher; // 그룹 커밋 꺼져 있으면 null
+
+    @PostConstruct
+    void init() {
+        if (groupCommitEnabled) {
+            batcher = new MessageWriteBatcher(this::persistBatch, meterRegistry,
+                    groupCommitCapacity, groupCommitMaxBatch, groupCommitMaxWaitMs, groupCommitWriters);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (batcher != null) batcher.shutdown();
+    }
+
+    /**
+     * 메시지 전송 (REST / WebSocket 공통 진입점)
+     * - 그룹 커밋 모드면 대기열에 넣고 커밋될 때까지 기다린다.
+     * - 아니면 지금처럼 요청마다 트랜잭션 1개로 저장한다.
+     * - clientMessageId 가 같은 재전송은 저장하지 않고 처음 결과를 돌려준다 (SendDeduplicator).
+     * - 단계별 시간은 SendPipelineMetrics(chat.send.stage), 호출 전체 시간은 chat.send.duration 으로 남는다.
+     */
     public MessageResponse sendMessage(Long userId, SendMessageRequest req) {
-        Chat chat = chatRepo.findById(req.chatId())
-                .orElseThrow(() -> new IllegalArgumentException("채팅방 없음"));
-        if (!userChatRepo.existsByUser_IdAndChat_Id(userId, chat.getId())) {
-            throw new IllegalArgumentException("채팅방 멤버가 아님");
+        try {
+            return submitMessage(userId, req).join();
+        } catch (CompletionException e) {
+            // 컨트롤러 예외 처리(IllegalArgumentException → 400 등)가 그대로 동작하도록 원인 예외를 던진다
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
         }
-        User sender = userRepo.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("유저 없음"));
+    }
 
-        // 채팅방 락
-        RLock lock = redissonClient.getLock("chatLock:" + chat.getId());
+    /**
+     * sendMessage 의 기다리지 않는 버전 (웹소켓 레인용): send-timeout-ms 와 chat.send.duration 까지 건 future.
+     * 그룹 커밋 모드면 대기열에 넣고 바로 돌아오므로, 호출 스레드가 커밋을 기다리며 붙잡혀 있지 않다.
+     */
+    public CompletableFuture<MessageResponse> submitMessage(Long userId, SendMessageRequest req) {
+        long started = System.nanoTime();
+        CompletableFuture<MessageResponse> f;
         try {
-            if (lock.tryLock(5, 10, TimeUnit.SECONDS)) {
-                // JPA 엔티티로 저장
-                Message msg = Message.builder()
-                        .chat(chat)
-                        .sender(sender)
-                        .contentType(req.contentType() == null ? "TEXT" : req.contentType())
-                        .content(req.content())
-                        .build();
-                messageRepo.save(msg); // msg.getId() 사용 가능
-
-                MessageResponse dto = new MessageResponse(
-                        msg.getId(),
-                        chat.getId(),
-                        sender.getId(),
-                        msg.getContentType(),
-                        msg.getContent(),
-                        msg.getCreateAt(),
-                        1L);
-
-                // Kafka 발행
-                kafkaTemplate.send("chat-messages", dto.chatId().toString(), dto);
-                // 커밋 후 브로드캐스트 이벤트 발행
-                eventPublisher.publishEvent(new MessageCreatedEvent(dto));
-                return dto;
-            } else {
-                throw new IllegalStateException("메시지 전송 중 다른 작업과 충돌했습니다.");
+            f = sendMessageAsync(userId, req);
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        return f.orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((saved, error) -> pipelineMetrics.recordSend(started, error == null));
+    }
+
+    /** 비동기 전송: 그룹 커밋 모드면 기다리지 않고 future 를 돌려준다 */
+    public CompletableFuture<MessageResponse> sendMessageAsync(Long userId, SendMessageRequest req) {
+        return dedup.submit(userId, req.clientMessageId(), () -> {
+            if (batcher != null) return batcher.submit(userId, req);
+            long started = System.nanoTime();
+            try {
+                return CompletableFuture.completedFuture(withSeqRetry(List.of(req.chatId()),
+                        () -> transactionTemplate.execute(tx -> persistOne(userId, req))));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            } finally {
+                pipelineMetrics.record(Stage.TRANSACTION, started); // INSERT flush + 커밋 (멤버 확인/순번 포함)
+            }
+        });
+    }
+
+    // 요청 1건 = 트랜잭션 1개 (transactionTemplate 안에서 호출)
+    private MessageResponse persistOne(Long userId, SendMessageRequest req) {
+        // 멤버 확인은 캐시로 (DB 조회 없음). 멤버면 방/유저 행도 있으므로(FK) 참조만 건다
+        long checkStarted = System.nanoTime();
+        boolean member = memberCache.isMember(req.chatId(), userId);
+        pipelineMetrics.record(Stage.MEMBERSHIP, checkStarted);
+        if (!member) {
+            throw new IllegalArgumentException("채팅방 멤버가 아님");
+        }
+        Message msg = newMessage(chatRepo.getReferenceById(req.chatId()), userRepo.getReferenceById(userId), req);
+        messageRepo.save(msg); // persist 만 (INSERT 는 커밋 때 flush)
+
+        MessageResponse dto = toResponse(msg, 1L);
+        writeOutboxAndPublish(List.of(dto));
+        return dto;
+    }
+
+    /**
+     * 그룹 커밋: 모인 요청들을 트랜잭션 1개로 저장한 뒤(커밋 후) 각 future 를 완료한다.
+     * - 멤버 여부는 ChatMemberCache 로 확인한다 (캐시에 없는 방들은 쿼리 1번).
+     * - 멤버가 아닌 요청만 개별 실패 처리하고, 나머지는 같이 저장한다.
+     * - 멤버 행이 있으면 방/유저도 존재하므로(FK) 엔티티는 SELECT 없이 참조(getReferenceById)만 건다.
+     * - seq 충돌이면 배치에 든 방들의 순번을 맞춘 뒤 배치 전체를 1번 다시 저장한다.
+     */
+    private void persistBatch(List<MessageWriteBatcher.PendingSend> batch) {
+        long txStarted = System.nanoTime();
+        Set<Long> chatIds = new HashSet<>();
+        for (MessageWriteBatcher.PendingSend p : batch) chatIds.add(p.req().chatId());
+        Object[] outcomes = withSeqRetry(chatIds, () -> transactionTemplate.execute(tx -> {
+            long checkStarted = System.nanoTime();
+            Map<Long, long[]> members = memberCache.membersOf(chatIds);
+            pipelineMetrics.record(Stage.MEMBERSHIP, checkStarted);
+
+            Object[] result = new Object[batch.size()];
+            List<Message> toSave = new ArrayList<>(batch.size());
+            List<Integer> savedIndex = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                MessageWriteBatcher.PendingSend p = batch.get(i);
+                if (Arrays.binarySearch(members.get(p.req().chatId()), p.userId()) < 0) {
+                    result[i] = new IllegalArgumentException("채팅방 멤버가 아님");
+                    continue;
+                }
+                toSave.add(newMessage(chatRepo.getReferenceById(p.req().chatId()),
+                        userRepo.getReferenceById(p.userId()), p.req()));
+                savedIndex.add(i);
             }
-        } catch (InterruptedException e) {
-            throw new RuntimeException("락 획득 오류", e);
-        } finally {
-            if (lock.isHeldByCurrentThread()) lock.unlock();
+            messageRepo.saveAll(toSave);
+
+            List<MessageResponse> dtos = new ArrayList<>(toSave.size());
+            for (int k = 0; k < toSave.size(); k++) {
+                MessageResponse dto = toResponse(toSave.get(k), 1L);
+                dtos.add(dto);
+                result[savedIndex.get(k)] = dto;
+            }
+            writeOutboxAndPublish(dtos);
+            return result;
+        }));
+        pipelineMetrics.record(Stage.TRANSACTION, txStarted);
+
+        // 여기까지 왔으면 커밋 완료 → 호출자들에게 결과 전달
+        for (int i = 0; i < batch.size(); i++) {
+            Object o = outcomes[i];
+            if (o instanceof MessageResponse dto) batch.get(i).future().complete(dto);
+            else batch.get(i).future().completeExceptionally((Throwable) o);
+        }
+    }
+
+    // uk_msg_chat_seq 충돌: Redis 순번이 DB 보다 뒤처져 이미 쓰인 번호를 받았다 (키 유실 후 재시드 등)
+    // → 방 순번을 DB 기준으로 올리고 새 번호로 1번만 다시 저장한다. 커밋 후 리스너만 있어서 롤백된 시도는 흔적이 없다
+    private <T> T withSeqRetry(Collection<Long> chatIds, Supplier<T> tx) {
+        try {
+            return tx.get();
+        } catch (DataIntegrityViolationException e) {
+            if (!ChatSequenceAllocator.isSeqConflict(e)) throw e;
+            meterRegistry.counter("chat.message.seq.retries").increment();
+            chatIds.forEach(sequenceAllocator::resync);
+            return tx.get();
+        }
+    }
+
+    private Message newMessage(Chat chat, User sender, SendMessageRequest req) {
+        // 방 순번 발급 (Redis INCR 1회, 락 없음) → 같은 방 발신자끼리 I/O 동안 줄 서지 않는다
+        long seqStarted = System.nanoTime();
+        long seq = sequenceAllocator.next(chat.getId());
+        pipelineMetrics.record(Stage.SEQUENCE, seqStarted);
+        return Message.builder()
+                .id(idGenerator.nextId())
+                .chat(chat)
+                .seq(seq)
+                .sender(sender)
+                .contentType(req.contentType() == null ? "TEXT" : req.contentType())
+                .content(req.content())
+                .build();
+    }
+
+    // 엔티티 → DTO (조회/전송 공통). 패키지 범위는 벤치마크(src/jmh)용
+    static MessageResponse toResponse(Message msg, long seenCount) {
+        return new MessageResponse(
+                msg.getId(),
+                msg.getChat().getId(),
+                msg.getSeq(),
+                msg.getSender().getId(),
+                msg.getContentType(),
+                msg.getContent(),
+                msg.getCreateAt(),
+                seenCount);
+    }
+
+    // Kafka 발행은 아웃박스에 적기만 한다 (같은 트랜잭션 INSERT, 브로커 대기 없음)
+    // → 커밋된 메시지만 OutboxRelay 가 배치로 보낸다. 롤백되면 이벤트도 같이 사라진다.
+    // 커밋 후 브로드캐스트는 MessageCreatedEvent → MessageBroadcastListener 가 한다.
+    private void writeOutboxAndPublish(List<MessageResponse> dtos) {
+        List<MessageOutbox> rows = new ArrayList<>(dtos.size());
+        for (MessageResponse dto : dtos) {
+            rows.add(MessageOutbox.builder()
+                    .id(idGenerator.nextId())
+                    .chatId(dto.chatId())
+                    .payload(toJson(dto))
+                    .originNode(nodeIdentity.nodeId())
+                    .build());
         }
+        outboxRepo.saveAll(rows);
+        for (MessageResponse dto : dtos) eventPublisher.publishEvent(new MessageCreatedEvent(dto));
     }
 
     @Transactional(readOnly = true)
-    @Cacheable(value = "chatMessages", key = "#chatId + ':' + #pageable.pageNumber")
     public Page<MessageResponse> getMessages(Long userId, Long chatId, Pageable pageable) {
-        if (!userChatRepo.existsByUser_IdAndChat_Id(userId, chatId)) {
+        if (!memberCache.isMember(chatId, userId)) {
             throw new IllegalArgumentException("채팅방 멤버가 아님");
         }
         Pageable effective = pageable;
@@ -88,10 +263,95 @@ public class MessageService {
                     pageable == null ? 50 : pageable.getPageSize(),
                     Sort.by(Sort.Direction.DESC, "createAt"));
         }
-        return messageRepo.findByChatId(chatId, effective)
-                .map(m -> new MessageResponse(
-                        m.getId(), m.getChat().getId(), m.getSender().getId(),
-                        m.getContentType(), m.getContent(),
-                        m.getCreateAt(), 0L));
+        // 첫 페이지(최신순)는 최근 메시지 링에서 바로 준다 (COUNT 도 링이 들고 있는 건수 사용)
+        if (effective.getPageNumber() == 0 && effective.getPageSize() <= recentCache.capacity()
+                && effective.getSort().equals(Sort.by(Sort.Direction.DESC, "createAt"))) {
+            RecentMessageCache.Tail tail = recentTail(chatId, effective.getPageSize());
+            return new PageImpl<>(cursorIndex.withSeenCounts(chatId, tail.items()), effective, tail.total());
+        }
+        Page<MessageResponse> page = messageRepo.findByChatId(chatId, effective).map(m -> toResponse(m, 0L));
+        return new PageImpl<>(cursorIndex.withSeenCounts(chatId, page.getContent()), effective, page.getTotalElements());
+    }
+
+    /**
+     * 커서 기반 히스토리 (before / after 중 하나만, 둘 다 없으면 최신부터)
+     * - limit + 1 건을 읽어서 "더 있는지" 를 COUNT 없이 판단한다.
+     */
+    @Transactional(readOnly = true)
+    public MessageSlice getHistory(Long userId, Long chatId, String before, String after, int limit) {
+        if (!memberCache.isMember(chatId, userId)) {
+            throw new IllegalArgumentException("채팅방 멤버가 아님");
+        }
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("before 와 after 는 함께 쓸 수 없음");
+        }
+        if (before == null && after == null && limit <= recentCache.capacity()) {
+            RecentMessageCache.Tail tail = recentTail(chatId, limit);
+            List<MessageResponse> items = tail.items();
+            String next = items.isEmpty() ? null : MessageCursor.of(items.get(items.size() - 1)).encode();
+            return new MessageSlice(cursorIndex.withSeenCounts(chatId, items), next, tail.hasMore());
+        }
+        Limit fetch = Limit.of(limit + 1);
+        List<Message> rows;
+        if (after != null) {
+            MessageCursor c = MessageCursor.parse(after);
+            rows = messageRepo.findAfter(chatId, c.createdAt(), c.id(), fetch);
+        } else if (before != null) {
+            MessageCursor c = MessageCursor.parse(before);
+            rows = messageRepo.findBefore(chatId, c.createdAt(), c.id(), fetch);
+        } else {
+            rows = messageRepo.findByChatIdOrderByCreateAtDescIdDesc(chatId, fetch);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<MessageResponse> items = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) items.add(toResponse(rows.get(i), 0L));
+        String next = items.isEmpty() ? null : MessageCursor.of(items.get(items.size() - 1)).encode();
+        return new MessageSlice(cursorIndex.withSeenCounts(chatId, items), next, hasMore);
+    }
+
+    /**
+     * 재접속 따라잡기: lastSeenId 다음 메시지들 (오래된순, 최대 limit 건)
+     * - 최근 메시지 링이 그 지점을 덮고 있으면 메모리에서, 아니면 DB 범위 조회 1번.
+     * - hasMore 면 클라이언트가 nextCursor 로 /api/messages/history?after= 를 이어서 부른다.
+     */
+    @Transactional(readOnly = true)
+    public MessageSlice missedAfter(Long userId, Long chatId, long lastSeenId, int limit) {
+        if (!memberCache.isMember(chatId, userId)) {
+            throw new IllegalArgumentException("채팅방 멤버가 아님");
+        }
+        List<MessageResponse> items = recentCache.after(chatId, lastSeenId, limit + 1);
+        if (items == null) {
+            items = new ArrayList<>(limit + 1);
+            for (Message m : messageRepo.findAfterMessageId(chatId, lastSeenId, Limit.of(limit + 1))) {
+                items.add(toResponse(m, 0L));
+            }
+        }
+        boolean hasMore = items.size() > limit;
+        if (hasMore) items = items.subList(0, limit);
+        String next = items.isEmpty() ? null : MessageCursor.of(items.get(items.size() - 1)).encode();
+        return new MessageSlice(cursorIndex.withSeenCounts(chatId, items), next, hasMore);
+    }
+
+    // 최근 메시지 링 조회, 없으면 DB 에서 링 크기만큼 읽어서 채운다
+    private RecentMessageCache.Tail recentTail(Long chatId, int limit) {
+        RecentMessageCache.Tail cached = recentCache.latest(chatId, limit);
+        if (cached != null) return cached;
+
+        long version = recentCache.version(chatId);
+        List<Message> rows = messageRepo.findByChatIdOrderByCreateAtDescIdDesc(chatId, Limit.of(recentCache.capacity()));
+        long total = rows.size() < recentCache.capacity() ? rows.size() : messageRepo.countByChatId(chatId);
+        List<MessageResponse> newest = new ArrayList<>(rows.size());
+        for (Message m : rows) newest.add(toResponse(m, 0L));
+        recentCache.install(chatId, version, newest, total);
+        return new RecentMessageCache.Tail(newest.subList(0, Math.min(limit, newest.size())), total);
+    }
+
+    private String toJson(MessageResponse dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("메시지 직렬화 실패", e);
+        }
     }
 }
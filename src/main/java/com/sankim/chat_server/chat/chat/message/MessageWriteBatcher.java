@@ -0,0 +1,155 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.api.dto.SendMessageRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 그룹 커밋(group commit) 대기열.
+ *
+ * 왜?
+ * - 메시지 1건 = 트랜잭션 1개 = 커넥션 1개 + 커밋 1번. 순간적으로 몰리면 Hikari 풀(20개)이 바닥나고
+ *   connection-timeout(1초) 으로 요청이 실패한다.
+ * - 들어온 전송 요청을 큐에 모았다가 writer 스레드가 "N건 또는 몇 ms" 단위로 한 트랜잭션에 몰아서 저장한다.
+ *   커넥션/커밋 수가 배치 수만큼으로 줄고, 각 호출자는 자기 future 로 결과를 받는다.
+ *
+ * - writer 마다 자기 큐가 있고 chatId 로 큐를 고른다 (같은 방은 항상 같은 writer).
+ *   큐 하나를 여러 writer 가 나눠 가지면 같은 방 두 건이 서로 다른 배치로 갈라져 어느 쪽이 먼저 커밋될지 모른다
+ *   → 발급한 seq 순서와 커밋 순서가 어긋난다. 방을 writer 에 고정하면 방 안에서는 들어온 순서 = seq 순서 = 커밋 순서.
+ * - 큐가 가득 차면 기다리지 않고 바로 실패시킨다 (호출자가 재시도/에러 응답). capacity 는 writer 수로 나눠 갖는다.
+ * - 실제 저장은 생성자로 받은 flusher(MessageService) 가 한다. 이 클래스는 모으기/타이밍/메트릭만 담당.
+ */
+@Slf4j
+class MessageWriteBatcher {
+
+    /** 큐에 들어간 전송 요청 1건 */
+    record PendingSend(Long userId, SendMessageRequest req,
+                       CompletableFuture<MessageResponse> future, long enqueuedNanos) {
+    }
+
+    private final List<BlockingQueue<PendingSend>> queues = new ArrayList<>();
+    private final Consumer<List<PendingSend>> flusher;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSize;
+    private final Timer commitTimer;
+    private final Timer endToEnd;
+    private final Counter messages;
+    private final Counter rejected;
+
+    MessageWriteBatcher(Consumer<List<PendingSend>> flusher, MeterRegistry meterRegistry,
+                        int capacity, int maxBatch, long maxWaitMs, int writerThreads) {
+        this.flusher = flusher;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+
+        this.batchSize = DistributionSummary.builder("chat.message.groupcommit.batch")
+                .description("그룹 커밋 1회에 저장된 메시지 수")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("chat.message.groupcommit.commit")
+                .description("그룹 커밋 1회 트랜잭션(INSERT + 커밋) 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.endToEnd = Timer.builder("chat.message.groupcommit.latency")
+                .description("큐에 들어간 뒤 커밋 완료까지 (메시지 1건 기준)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.messages = meterRegistry.counter("chat.message.groupcommit.messages");
+        this.rejected = meterRegistry.counter("chat.message.groupcommit.rejected");
+
+        int perWriter = Math.max(1, capacity / writerThreads);
+        for (int i = 0; i < writerThreads; i++) {
+            BlockingQueue<PendingSend> queue = new ArrayBlockingQueue<>(perWriter);
+            queues.add(queue);
+            Thread t = new Thread(() -> runLoop(queue), "msg-group-commit-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            writers.add(t);
+        }
+    }
+
+    CompletableFuture<MessageResponse> submit(Long userId, SendMessageRequest req) {
+        CompletableFuture<MessageResponse> f = new CompletableFuture<>();
+        BlockingQueue<PendingSend> queue = queues.get(Math.floorMod(Long.hashCode(req.chatId()), queues.size()));
+        if (!running || !queue.offer(new PendingSend(userId, req, f, System.nanoTime()))) {
+            rejected.increment();
+            f.completeExceptionally(new IllegalStateException("메시지 저장 대기열이 가득 찼습니다. 잠시 후 다시 시도하세요."));
+        }
+        return f;
+    }
+
+    /** 종료: 새 요청을 막고, 남은 요청은 writer 가 마저 저장한 뒤 끝난다 */
+    void shutdown() {
+        running = false;
+        for (Thread t : writers) {
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void runLoop(BlockingQueue<PendingSend> queue) {
+        List<PendingSend> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // 첫 건 기준 maxWait 안에서 maxBatch 까지 더 모은다
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatch - batch.size()); // 이미 와 있는 건 기다림 없이
+                        break;
+                    }
+                    PendingSend next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.future().completeExceptionally(e));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingSend> batch) {
+        long started = System.nanoTime();
+        try {
+            flusher.accept(batch);
+        } catch (Exception e) {
+            log.warn("그룹 커밋 실패 size={}", batch.size(), e);
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+        long now = System.nanoTime();
+        commitTimer.record(now - started, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+        messages.increment(batch.size());
+        for (PendingSend p : batch) endToEnd.record(now - p.enqueuedNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,206 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sankim.chat_server.chat.chat.MessageOutbox;
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.config.KafkaConfig;
+import com.sankim.chat_server.chat.chat.repository.MessageOutboxRepository;
+import com.sankim.chat_server.chat.chat.support.SendPipelineMetrics;
+import com.sankim.chat_server.chat.chat.support.SendPipelineMetrics.Stage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 아웃박스(message_outbox) → Kafka 릴레이.
+ *
+ * 동작
+ * - 짧은 주기로 오래된 행부터 batchSize 건을 읽어, chatId 를 key 로 읽은 순서대로 send 한다.
+ *   같은 key 는 같은 파티션으로 가고 프로듀서는 보낸 순서를 지키므로 방 안 순서가 유지된다.
+ * - 전부 ack 를 기다린 뒤, ack 받은 행은 한 번의 DELETE ... IN (...) 으로 지우고 나머지는 다음 주기에 다시 보낸다.
+ *   (적어도 한 번 전달) 실패가 없는 방은 한 행도 다시 나가지 않는다.
+ * - 한 방에서 실패가 나면 그 방의 뒤 행들은 ack 를 받았어도 지우지 않는다 (아직 안 보냈으면 보내지도 않는다).
+ *   다음 주기에 실패한 행부터 그 방 순서대로 다시 나간다 → 방 안 순서 유지. 그 방의 뒤 행은 중복될 수 있다(id 로 거른다).
+ * - id 범위(<= maxId)로 지우지 않는 이유: id 는 INSERT 전에 발급되므로(노드/writer 마다) 커밋 순서와 다를 수 있어서,
+ *   아직 커밋 안 된 더 작은 id 행을 보내지도 않고 지워버릴 수 있다.
+ * - 여러 노드가 동시에 보내면 중복/순서 꼬임이 생기므로 Redisson 락을 잡은 노드 하나만 릴레이한다.
+ *
+ * 메트릭
+ * - chat.outbox.lag    : 가장 오래 대기 중인 행의 나이(초). 릴레이가 밀리면 커진다.
+ *                        릴레이 락을 잡은 노드만 값을 내고 나머지 노드는 0 (노드별 max 로 본다)
+ * - chat.outbox.relayed: 보낸 건수, chat.outbox.batch: 배치 1회 전송+ack 시간
+ * - chat.send.stage{stage=kafka_ack}: 레코드 1건 send → 브로커 ack (SendPipelineMetrics)
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String LEADER_LOCK = "outboxRelayLock";
+    // 같은 방 앞 행이 실패해서 보내지 않은 행 표시
+    private static final CompletableFuture<SendResult<String, MessageResponse>> SKIPPED = new CompletableFuture<>();
+
+    private final MessageOutboxRepository outboxRepo;
+    private final KafkaTemplate<String, MessageResponse> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedissonClient redissonClient;
+    private final SendPipelineMetrics pipelineMetrics;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long sendTimeoutMs;
+
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+    private final Counter relayed;
+    private final Counter failed;
+    private final Timer batchTimer;
+
+    public OutboxRelay(MessageOutboxRepository outboxRepo,
+                       KafkaTemplate<String, MessageResponse> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       RedissonClient redissonClient,
+                       MeterRegistry meterRegistry,
+                       SendPipelineMetrics pipelineMetrics,
+                       @Value("${chat.outbox.batch-size:500}") int batchSize,
+                       @Value("${chat.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${chat.outbox.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.outboxRepo = outboxRepo;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.redissonClient = redissonClient;
+        this.pipelineMetrics = pipelineMetrics;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.sendTimeoutMs = sendTimeoutMs;
+
+        this.relayed = meterRegistry.counter("chat.outbox.relayed");
+        this.failed = meterRegistry.counter("chat.outbox.failed");
+        this.batchTimer = Timer.builder("chat.outbox.batch")
+                .description("아웃박스 배치 1회 전송 + ack 대기 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("chat.outbox.lag", oldestPendingMillis,
+                        v -> v.get() == 0 ? 0 : (System.currentTimeMillis() - v.get()) / 1000.0)
+                .description("가장 오래 대기 중인 아웃박스 행의 나이(초)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.outbox.relay-interval-ms:50}")
+    public void relay() {
+        RLock lock = redissonClient.getLock(LEADER_LOCK);
+        if (!lock.tryLock()) { // 다른 노드가 릴레이 중
+            oldestPendingMillis.set(0); // 리더가 아니면 lag 를 내지 않는다 (예전 리더 때 값이 굳어 있지 않게)
+            return;
+        }
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (relayBatch() < batchSize) break; // 다 비웠으면 다음 주기까지 쉰다
+            }
+        } catch (Exception e) {
+            log.warn("아웃박스 릴레이 실패", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) lock.unlock();
+        }
+    }
+
+    /** @return 전부 보냈으면 읽은 행 수, 하나라도 실패했으면 0 (이번 주기는 여기서 멈춤) */
+    int relayBatch() throws InterruptedException {
+        List<MessageOutbox> batch = outboxRepo.findByOrderByIdAsc(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            oldestPendingMillis.set(0);
+            return 0;
+        }
+        oldestPendingMillis.set(batch.get(0).getCreateAt().toEpochMilli());
+
+        long started = System.nanoTime();
+        // 전송 실패가 난 방. 콜백(프로듀서 스레드)에서도 채우므로, 아직 안 보낸 그 방 행은 보내지 않는다
+        Set<Long> failedChats = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<SendResult<String, MessageResponse>>> futures = new ArrayList<>(batch.size());
+        for (MessageOutbox row : batch) {
+            if (failedChats.contains(row.getChatId())) {
+                futures.add(SKIPPED);
+                continue;
+            }
+            CompletableFuture<SendResult<String, MessageResponse>> f = send(row);
+            if (f != null) f.whenComplete((result, error) -> {
+                if (error != null) failedChats.add(row.getChatId());
+            });
+            futures.add(f);
+        }
+
+        // 읽은 순서대로 본다. 방마다 첫 실패 전까지의 ack 만 "전달 완료"
+        Set<Long> stopped = new HashSet<>();
+        List<Long> delivered = new ArrayList<>(batch.size());
+        for (int i = 0; i < futures.size(); i++) {
+            MessageOutbox row = batch.get(i);
+            CompletableFuture<SendResult<String, MessageResponse>> f = futures.get(i);
+            if (f == SKIPPED || stopped.contains(row.getChatId())) {
+                stopped.add(row.getChatId());
+                continue;
+            }
+            if (f == null) { // 읽을 수 없는 payload: 재시도해도 소용없으므로 버린다 (앞을 막지 않게)
+                delivered.add(row.getId());
+                continue;
+            }
+            try {
+                f.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                delivered.add(row.getId());
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failed.increment();
+                stopped.add(row.getChatId());
+                log.warn("아웃박스 전송 실패 outboxId={} chatId={} (그 방 뒤 행과 함께 다음 주기에 재시도)",
+                        row.getId(), row.getChatId(), e);
+            }
+        }
+        batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (!delivered.isEmpty()) {
+            outboxRepo.deleteAllByIdInBatch(delivered);
+            relayed.increment(delivered.size());
+        }
+        return delivered.size() == batch.size() ? batch.size() : 0;
+    }
+
+    /** @return 전송 future, payload 를 읽을 수 없으면 null */
+    private CompletableFuture<SendResult<String, MessageResponse>> send(MessageOutbox row) {
+        MessageResponse dto;
+        try {
+            dto = objectMapper.readValue(row.getPayload(), MessageResponse.class);
+        } catch (Exception e) {
+            failed.increment();
+            log.error("아웃박스 payload 파싱 실패, 버림 outboxId={}", row.getId(), e);
+            return null;
+        }
+        ProducerRecord<String, MessageResponse> record =
+                new ProducerRecord<>(KafkaConfig.CHAT_MESSAGES_TOPIC, row.getChatId().toString(), dto);
+        if (row.getOriginNode() != null) {
+            record.headers().add(KafkaConfig.ORIGIN_NODE_HEADER, row.getOriginNode().getBytes(StandardCharsets.UTF_8));
+        }
+        long started = System.nanoTime();
+        return kafkaTemplate.send(record).whenComplete((result, error) -> {
+            if (error == null) pipelineMetrics.record(Stage.KAFKA_ACK, started); // 실패는 chat.outbox.failed 로 센다
+        });
+    }
+}
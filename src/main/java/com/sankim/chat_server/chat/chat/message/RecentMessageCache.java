@@ -0,0 +1,266 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 채팅방별 "최근 메시지 N건" 링 버퍼 캐시.
+ *
+ * 왜?
+ * - 예전 chatMessages 캐시(ConcurrentMapCache)는 chatId:page 키로 무한정 쌓이고,
+ *   아무 방에서나 메시지 1건만 보내도 allEntries 로 전부 비워서 적중률이 거의 0 이었다.
+ * - 방을 열면 보는 건 거의 항상 "최신 한 페이지" → 방마다 최신 N건만 들고 있고,
+ *   전송 시 비우는 대신 링에 덧붙인다.
+ *
+ * 동작
+ * - 링은 (createdAt, id) 오름차순. 커밋 이벤트가 조금 늦게/순서 바뀌어 와도 제자리에 끼워 넣는다.
+ *   같은 id 는 링 전체에서 찾아 무시한다 (DB 에서 읽은 것과 Kafka 로 온 것의 createdAt 정밀도가 달라도 중복 안 됨)
+ * - 처음 읽을 때 DB 에서 최신 N건 + 전체 건수로 채운다(install). 그 사이 같은 방에 append 가 있었으면
+ *   (버전 비교) 설치하지 않는다 → 방금 커밋된 메시지가 빠진 링이 남지 않는다.
+ * - 방 단위 LRU + 방 개수/추정 메모리 한도. 넘치면 가장 오래 안 쓴 방부터 버린다.
+ * - 링에는 ttl 이 있다: Kafka 유실 등으로 append 를 놓쳤어도 ttl 이 지나면 DB 에서 다시 채운다.
+ *
+ * 동시성: 모든 조작은 이 객체 모니터로 짧게 보호한다 (링 크기만큼의 배열 복사가 최대 비용).
+ */
+@Component
+public class RecentMessageCache {
+
+    /** 최신순 목록 + 그 방 전체 메시지 수 */
+    public record Tail(List<MessageResponse> items, long total) {
+        public boolean hasMore() {
+            return total > items.size();
+        }
+    }
+
+    private static final Comparator<MessageResponse> ORDER =
+            Comparator.comparing(MessageResponse::createdAt).thenComparing(MessageResponse::id);
+    private static final int VERSION_STRIPES = 1024;
+    private static final int ENTRY_OVERHEAD_BYTES = 128; // 객체 헤더/필드/Instant 등 대략치
+
+    private final int perChat;
+    private final int maxChats;
+    private final long maxBytes;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Long, Ring> rings = new LinkedHashMap<>(256, 0.75f, true); // 접근순 = LRU
+    private final long[] versions = new long[VERSION_STRIPES];
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public RecentMessageCache(MeterRegistry meterRegistry,
+                              @Value("${chat.message.recent-cache.per-chat:200}") int perChat,
+                              @Value("${chat.message.recent-cache.max-chats:10000}") int maxChats,
+                              @Value("${chat.message.recent-cache.max-bytes:67108864}") long maxBytes,
+                              @Value("${chat.message.recent-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.perChat = perChat;
+        this.maxChats = maxChats;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlSeconds * 1000L;
+
+        this.hits = meterRegistry.counter("chat.message.recent.requests", "result", "hit");
+        this.misses = meterRegistry.counter("chat.message.recent.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("chat.message.recent.evictions");
+        Gauge.builder("chat.message.recent.chats", this, c -> c.chatCount())
+                .description("최근 메시지 링을 들고 있는 방 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.message.recent.bytes", this, c -> c.bytes())
+                .description("최근 메시지 링 추정 메모리")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /** 링 하나에 담는 최대 건수 (이보다 큰 페이지는 캐시로 못 준다) */
+    public int capacity() {
+        return perChat;
+    }
+
+    /**
+     * 최신 limit 건. 링이 없거나, 만료됐거나, limit 건을 다 못 채우면 null (→ DB 에서 읽고 install)
+     */
+    public synchronized Tail latest(Long chatId, int limit) {
+        Ring r = rings.get(chatId);
+        if (r != null && System.currentTimeMillis() - r.loadedAt > ttlMillis) {
+            remove(chatId);
+            r = null;
+        }
+        // 링이 limit 보다 작아도, 방의 전체 메시지가 링에 다 들어 있으면 줄 수 있다
+        if (r == null || (limit > r.size && r.total > r.size)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Tail(r.newest(limit), r.total);
+    }
+
+    /**
+     * 재접속 따라잡기: lastSeenId 다음 메시지부터 오래된순으로 최대 limit 건.
+     * 링이 그 지점을 덮고 있지 않으면 null (→ DB 범위 조회). 놓친 게 없으면 빈 목록.
+     */
+    public synchronized List<MessageResponse> after(Long chatId, long lastSeenId, int limit) {
+        Ring r = rings.get(chatId);
+        if (r == null || System.currentTimeMillis() - r.loadedAt > ttlMillis) {
+            misses.increment();
+            return null;
+        }
+        int from = r.indexOf(lastSeenId);
+        if (from >= 0) {
+            from++;
+        } else if (r.total == r.size && (r.size == 0 || lastSeenId < r.get(0).id())) {
+            from = 0; // 방 메시지가 전부 링에 있고 가장 오래된 것보다도 앞 → 처음부터
+        } else {
+            // 링보다 오래된 지점이거나, 링에 없는데 더 새로운 id (이 노드가 아직 Kafka 로 못 받은 메시지) → DB 로
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return r.range(from, limit);
+    }
+
+    /** DB 를 읽기 직전에 받아 두고 install 때 넘긴다 */
+    public synchronized long version(Long chatId) {
+        return versions[stripe(chatId)];
+    }
+
+    /**
+     * DB 에서 읽은 최신 목록으로 링을 채운다.
+     * @param newestFirst 최신순 (capacity 건 이하)
+     * @param total       그 방 전체 메시지 수
+     */
+    public synchronized void install(Long chatId, long version, List<MessageResponse> newestFirst, long total) {
+        if (versions[stripe(chatId)] != version) return; // 읽는 사이 새 메시지가 커밋됨 → 이번엔 캐시 안 함
+        remove(chatId);
+        Ring r = new Ring(perChat);
+        for (int i = newestFirst.size() - 1; i >= 0; i--) r.add(newestFirst.get(i));
+        r.total = Math.max(total, r.size);
+        rings.put(chatId, r);
+        totalBytes += r.bytes;
+        evictIfNeeded();
+    }
+
+    /** 커밋된 메시지 (로컬 커밋 / 다른 노드에서 Kafka 로 받은 것) */
+    public synchronized void append(MessageResponse m) {
+        versions[stripe(m.chatId())]++;
+        Ring r = rings.get(m.chatId());
+        if (r == null) return; // 아무도 안 보는 방은 채우지 않는다
+        long before = r.bytes;
+        if (r.add(m)) r.total++;
+        totalBytes += r.bytes - before;
+        evictIfNeeded();
+    }
+
+    public synchronized void evict(Long chatId) {
+        versions[stripe(chatId)]++;
+        remove(chatId);
+    }
+
+    private synchronized int chatCount() {
+        return rings.size();
+    }
+
+    private synchronized long bytes() {
+        return totalBytes;
+    }
+
+    private void remove(Long chatId) {
+        Ring r = rings.remove(chatId);
+        if (r != null) totalBytes -= r.bytes;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Long, Ring>> it = rings.entrySet().iterator();
+        while ((rings.size() > maxChats || totalBytes > maxBytes) && it.hasNext()) {
+            totalBytes -= it.next().getValue().bytes;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static int stripe(Long chatId) {
+        return (int) Math.floorMod(chatId, (long) VERSION_STRIPES);
+    }
+
+    private static long weight(MessageResponse m) {
+        return ENTRY_OVERHEAD_BYTES + (m.content() == null ? 0 : 2L * m.content().length());
+    }
+
+    /** 고정 크기 원형 배열. index 0 = 가장 오래된 것 */
+    private static final class Ring {
+        private final MessageResponse[] buf;
+        private int head;
+        private int size;
+        private long total;
+        private long bytes;
+        private final long loadedAt = System.currentTimeMillis();
+
+        Ring(int capacity) {
+            this.buf = new MessageResponse[capacity];
+        }
+
+        private MessageResponse get(int i) {
+            return buf[(head + i) % buf.length];
+        }
+
+        private void set(int i, MessageResponse m) {
+            buf[(head + i) % buf.length] = m;
+        }
+
+        /** @return 새 메시지면 true (링보다 오래돼서 안 담은 경우 포함), 이미 있는 id 면 false */
+        boolean add(MessageResponse m) {
+            // 정렬 위치 바로 앞만 보면 createdAt 이 조금 다른 같은 메시지를 놓친다 → id 로 링 전체를 본다
+            if (indexOf(m.id()) >= 0) return false;
+            // 대부분 맨 끝에 붙으므로 뒤에서부터 자리를 찾는다
+            int pos = size;
+            while (pos > 0 && ORDER.compare(get(pos - 1), m) > 0) pos--;
+
+            if (size == buf.length) {
+                if (pos == 0) return true; // 링에 있는 것보다 오래된 메시지: 건수만 센다
+                bytes -= weight(get(0));
+                buf[head] = null;
+                head = (head + 1) % buf.length;
+                size--;
+                pos--;
+            }
+            for (int i = size; i > pos; i--) set(i, get(i - 1));
+            set(pos, m);
+            size++;
+            bytes += weight(m);
+            return true;
+        }
+
+        // 링은 (createdAt, id) 순이라 id 로는 정렬돼 있지 않다 → 최근 것부터 선형 탐색 (최대 capacity 건)
+        int indexOf(long id) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (get(i).id() == id) return i;
+            }
+            return -1;
+        }
+
+        List<MessageResponse> range(int from, int limit) {
+            int to = Math.min(size, from + limit);
+            List<MessageResponse> out = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) out.add(get(i));
+            return out;
+        }
+
+        List<MessageResponse> newest(int limit) {
+            int n = Math.min(limit, size);
+            List<MessageResponse> out = new ArrayList<>(n);
+            for (int i = size - 1; i >= size - n; i--) out.add(get(i));
+            return out;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.support.BoundedLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 전송 중복 제거: (보낸 사람, clientMessageId) 가 같은 재전송은 다시 저장하지 않고 처음 결과를 돌려준다.
+ *
+ * 왜?
+ * - 모바일 클라이언트는 타임아웃이 나면 같은 메시지를 다시 보낸다. 재시도마다 Message 행 + Kafka 이벤트 + 브로드캐스트가 또 생겼다.
+ *
+ * 동작
+ * - 노드 메모리: 키 → 결과 future (처리중이면 아직 안 끝난 future). 동시에 들어온 재시도도 같은 future 를 기다린다.
+ *   개수 한도(max-entries) + 시간 창(window-seconds) 으로 메모리가 묶여 있다.
+ * - redis-enabled 이면 커밋된 결과를 chat:dedup:{userId}:{clientMessageId} 에 창 길이만큼 둔다.
+ *   다른 노드로 간 재시도도 잡는다. (아직 처리중인 요청이 다른 노드에 동시에 들어온 경우까지는 막지 못한다)
+ * - 저장이 실패하면 키를 지워서 재시도가 새로 저장되게 한다.
+ * - clientMessageId 가 없으면 예전처럼 매번 저장한다.
+ */
+@Slf4j
+@Component
+public class SendDeduplicator {
+
+    private static final String NAME = "sendDedup";
+    private static final String KEY_PREFIX = "chat:dedup:";
+
+    private final BoundedLruCache<String, CompletableFuture<MessageResponse>> local;
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final boolean redisEnabled;
+    private final Duration window;
+
+    private final Counter replayLocal;
+    private final Counter replayRedis;
+    private final Counter fresh;
+
+    public SendDeduplicator(StringRedisTemplate redis,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${chat.message.dedup.max-entries:100000}") int maxEntries,
+                            @Value("${chat.message.dedup.window-seconds:300}") long windowSeconds,
+                            @Value("${chat.message.dedup.redis-enabled:false}") boolean redisEnabled) {
+        this.local = new BoundedLruCache<>(NAME, maxEntries, windowSeconds * 1000L, meterRegistry);
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.redisEnabled = redisEnabled;
+        this.window = Duration.ofSeconds(windowSeconds);
+
+        this.replayLocal = meterRegistry.counter("chat.message.dedup", "result", "replay", "tier", "l1");
+        this.replayRedis = meterRegistry.counter("chat.message.dedup", "result", "replay", "tier", "redis");
+        this.fresh = meterRegistry.counter("chat.message.dedup", "result", "new", "tier", "none");
+    }
+
+    /**
+     * 처음 보는 키면 send 를 실행하고, 본 적 있는 키면 그때 결과를 돌려준다.
+     * 돌려주는 future 는 복사본이라 호출자가 orTimeout 등을 걸어도 다른 재시도에 영향이 없다.
+     */
+    public CompletableFuture<MessageResponse> submit(Long userId, String clientMessageId,
+                                                     Supplier<CompletableFuture<MessageResponse>> send) {
+        if (clientMessageId == null || clientMessageId.isBlank()) return send.get();
+        String key = userId + ":" + clientMessageId;
+
+        CompletableFuture<MessageResponse> mine = new CompletableFuture<>();
+        CompletableFuture<MessageResponse> existing;
+        synchronized (this) {
+            existing = local.get(key);
+            if (existing == null) local.put(key, mine);
+        }
+        if (existing != null) {
+            replayLocal.increment();
+            return existing.copy();
+        }
+
+        MessageResponse stored = readRedis(key);
+        if (stored != null) {
+            replayRedis.increment();
+            mine.complete(stored);
+            return mine.copy();
+        }
+
+        fresh.increment();
+        try {
+            send.get().whenComplete((saved, error) -> {
+                if (error != null) {
+                    forget(key, mine);
+                    mine.completeExceptionally(error);
+                } else {
+                    writeRedis(key, saved);
+                    mine.complete(saved);
+                }
+            });
+        } catch (RuntimeException e) {
+            forget(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine.copy();
+    }
+
+    // 실패한 시도는 기록에서 지운다 (그 사이 다른 시도로 바뀌었으면 그대로 둔다)
+    private synchronized void forget(String key, CompletableFuture<MessageResponse> attempt) {
+        if (local.get(key) == attempt) local.invalidate(key);
+    }
+
+    private MessageResponse readRedis(String key) {
+        if (!redisEnabled) return null;
+        try {
+            String json = redis.opsForValue().get(KEY_PREFIX + key);
+            return json == null ? null : objectMapper.readValue(json, MessageResponse.class);
+        } catch (Exception e) {
+            log.warn("중복 제거 조회 실패 key={}", key, e);
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, MessageResponse saved) {
+        if (!redisEnabled) return;
+        try {
+            redis.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(saved), window);
+        } catch (Exception e) {
+            log.warn("중복 제거 기록 실패 key={}", key, e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.repository.MessageRepository;
+import com.sankim.chat_server.chat.chat.support.NodeIdentity;
+import com.sankim.chat_server.chat.chat.support.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Snowflake 방식 메시지 id 발급기 (기본 구현).
+ *
+ * worker id 정하기
+ * - chat.node.worker-id 가 0~1023 이면 그 값을 쓴다. (노드마다 다르게 지정하는 게 가장 확실)
+ * - 비어 있으면(-1) Redis 에서 빈 번호를 임대한다: chat:idgen:worker:{n} 키를 SET NX + TTL 로 잡고,
+ *   주기적으로 TTL 을 연장한다. 노드가 죽으면 TTL 후 번호가 풀린다.
+ * - 임대를 잃었거나(다른 노드가 가져감) 연장 실패로 TTL 이 지났으면 nextId 는 예외를 던진다.
+ *   그 번호를 다른 노드가 쓰고 있을 수 있어 계속 발급하면 PK 가 겹친다. 다음 연장 주기에 새 번호를 잡으면 풀린다.
+ *
+ * 재시작 안전
+ * - DB 의 max(id) 를 바닥값으로 넘긴다. 재시작 후 시계가 뒤로 가 있어도 이미 저장된 id 보다 큰 값만 나온다.
+ */
+@Slf4j
+@Component
+public class SnowflakeMessageIdGenerator implements MessageIdGenerator {
+
+    private static final String LEASE_PREFIX = "chat:idgen:worker:";
+    private static final Duration LEASE_TTL = Duration.ofSeconds(60);
+
+    // 내 것이면 TTL 연장, 비어 있으면 다시 잡는다. 다른 노드가 가져갔으면 0
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>("""
+            local cur = redis.call('GET', KEYS[1])
+            if cur == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end
+            if not cur then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final NodeIdentity nodeIdentity;
+    private final boolean leased; // 고정 worker id 면 false
+    private volatile SnowflakeIdGenerator delegate;
+    private volatile String leaseKey;       // 고정 worker id 면 null
+    private volatile long leaseValidUntil;  // 이 시각(ms)이 지나면 임대가 풀렸을 수 있다 → 발급 중단
+
+    public SnowflakeMessageIdGenerator(StringRedisTemplate redis,
+                                       NodeIdentity nodeIdentity,
+                                       MessageRepository messageRepo,
+                                       @Value("${chat.node.worker-id:-1}") long configuredWorkerId) {
+        this.redis = redis;
+        this.nodeIdentity = nodeIdentity;
+        this.leased = configuredWorkerId < 0;
+        long workerId = leased ? leaseWorkerId() : configuredWorkerId;
+
+        Long maxId = messageRepo.findMaxId();
+        this.delegate = new SnowflakeIdGenerator(workerId, maxId == null ? 0 : maxId);
+        log.info("[idgen] workerId={} leased={} floorId={}", workerId, leased, maxId);
+    }
+
+    /** @throws IllegalStateException worker id 임대가 유효하지 않을 때 (겹치는 id 를 내느니 전송을 실패시킨다) */
+    @Override
+    public long nextId() {
+        if (leased && System.currentTimeMillis() >= leaseValidUntil) {
+            throw new IllegalStateException("worker id 임대가 유효하지 않아 id 를 발급할 수 없습니다 key=" + leaseKey);
+        }
+        return delegate.nextId();
+    }
+
+    @Scheduled(fixedDelay = 20_000, initialDelay = 20_000)
+    void renewLease() {
+        if (!leased) return;
+        try {
+            if (leaseKey != null) {
+                long started = System.currentTimeMillis();
+                Long ok = redis.execute(RENEW, List.of(leaseKey), nodeIdentity.nodeId(),
+                        String.valueOf(LEASE_TTL.toMillis()));
+                if (ok != null && ok != 0L) {
+                    leaseValidUntil = started + LEASE_TTL.toMillis();
+                    return;
+                }
+                // 다른 노드가 이 번호를 가져갔다 → 즉시 발급 중단하고 새 번호를 잡는다
+                log.error("[idgen] worker id 임대를 잃었습니다 key={} (새 번호를 잡을 때까지 발급 중단)", leaseKey);
+                leaseValidUntil = 0;
+                leaseKey = null;
+            }
+            switchTo(leaseWorkerId());
+        } catch (Exception e) {
+            log.warn("[idgen] worker id 임대 연장/재임대 실패 key={}", leaseKey, e);
+        }
+    }
+
+    // 새 번호로 갈아탄다. 이전 생성기가 낼 다음 id 를 바닥값으로 넘겨 이 노드 안 단조 증가를 지킨다
+    private void switchTo(long workerId) {
+        long floorId = delegate.nextId();
+        delegate = new SnowflakeIdGenerator(workerId, floorId);
+        log.warn("[idgen] worker id 재임대 workerId={} floorId={}", workerId, floorId);
+    }
+
+    // nodeId 해시 위치부터 돌면서 비어 있는 번호를 잡는다 (재시작하면 대개 같은 번호로 돌아온다)
+    // 잡으면 leaseKey / leaseValidUntil 도 갱신한다
+    private long leaseWorkerId() {
+        String me = nodeIdentity.nodeId();
+        int slots = (int) SnowflakeIdGenerator.MAX_WORKER_ID + 1;
+        int start = Math.floorMod(me.hashCode(), slots);
+        for (int i = 0; i < slots; i++) {
+            int candidate = (start + i) % slots;
+            String key = LEASE_PREFIX + candidate;
+            long started = System.currentTimeMillis();
+            Boolean acquired = redis.opsForValue().setIfAbsent(key, me, LEASE_TTL);
+            if (Boolean.TRUE.equals(acquired) || me.equals(redis.opsForValue().get(key))) {
+                if (!Boolean.TRUE.equals(acquired)) redis.expire(key, LEASE_TTL);
+                leaseKey = key;
+                leaseValidUntil = started + LEASE_TTL.toMillis();
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("사용 가능한 worker id 가 없습니다 (1024개 모두 임대중)");
+    }
+}
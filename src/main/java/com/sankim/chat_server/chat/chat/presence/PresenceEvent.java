@@ -0,0 +1,27 @@
+package com.sankim.chat_server.chat.chat.presence;
+
+import java.util.List;
+
+/**
+ * 접속/입력중 상태 변화 1건 (노드 간에도 이 모양 그대로 오간다).
+ * - PRESENCE: userId 가 접속/종료. chatIds = 그 유저의 방들 (이 방 멤버들에게만 보낸다)
+ * - TYPING  : userId 가 chatIds[0] 방에서 입력 시작/멈춤
+ * - active  : 접속중 / 입력중 이면 true
+ */
+public record PresenceEvent(Kind kind, long userId, List<Long> chatIds, boolean active) {
+
+    public enum Kind { PRESENCE, TYPING }
+
+    public static PresenceEvent presence(long userId, List<Long> chatIds, boolean online) {
+        return new PresenceEvent(Kind.PRESENCE, userId, chatIds, online);
+    }
+
+    public static PresenceEvent typing(long userId, long chatId, boolean typing) {
+        return new PresenceEvent(Kind.TYPING, userId, List.of(chatId), typing);
+    }
+
+    /** 같은 키의 이벤트는 최신 것만 의미가 있다 (모으는 동안 / 송신 큐 안에서 대체) */
+    public String coalesceKey() {
+        return kind == Kind.PRESENCE ? "presence:" + userId : "typing:" + chatIds.get(0) + ":" + userId;
+    }
+}
@@ -0,0 +1,133 @@
+package com.sankim.chat_server.chat.chat.presence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sankim.chat_server.chat.chat.support.NodeIdentity;
+import com.sankim.chat_server.chat.chat.ws.OutboundFrame;
+import com.sankim.chat_server.chat.chat.ws.OutboundSession;
+import com.sankim.chat_server.chat.chat.ws.RoomSessionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 접속/입력중 이벤트 전달.
+ *
+ * - 이벤트는 바로 보내지 않고 flush-ms 동안 키(coalesceKey)별 최신 것만 모은다.
+ *   입력 시작 → 멈춤 이 한 창 안에 끝나면 마지막 상태 1건만 나간다 (디바운스).
+ * - 창이 닫히면 이 노드 세션에 보내고, 다른 노드에는 Redis 채널로 묶음 1개를 발행한다.
+ *   다른 노드는 받은 이벤트를 자기 세션에만 전달한다. (자기가 발행한 것은 무시)
+ * - 받는 쪽은 이벤트 대상 방들의 멤버 세션만. 여러 방에 같이 있는 멤버에게도 1번만 보낸다. 본인 세션은 뺀다.
+ * - 상태성 프레임이라 송신 큐에서도 coalesceKey 로 이전 프레임을 대체한다 (느린 세션에 쌓이지 않음).
+ *
+ * 프레임 (바이너리 세션에도 JSON 텍스트)
+ *   {"type":"presence","userId":5,"online":true}
+ *   {"type":"typing","chatId":1,"userId":5,"typing":true}
+ */
+@Slf4j
+@Component
+public class PresenceRelay implements MessageListener {
+
+    public static final String CHANNEL = "chat:presence";
+
+    /** 노드 간에 오가는 묶음 */
+    record Batch(String node, List<PresenceEvent> events) {
+    }
+
+    private final RoomSessionRegistry sessionRegistry;
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, PresenceEvent> pending = new ConcurrentHashMap<>();
+
+    public PresenceRelay(RoomSessionRegistry sessionRegistry,
+                         StringRedisTemplate redis,
+                         RedisMessageListenerContainer container,
+                         ObjectMapper objectMapper,
+                         NodeIdentity nodeIdentity,
+                         MeterRegistry meterRegistry) {
+        this.sessionRegistry = sessionRegistry;
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeIdentity.nodeId();
+        this.meterRegistry = meterRegistry;
+        container.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public void offer(PresenceEvent event) {
+        meterRegistry.counter("chat.presence.events", "kind", event.kind().name().toLowerCase()).increment();
+        pending.put(event.coalesceKey(), event);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.flush-ms:100}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<PresenceEvent> events = new ArrayList<>();
+        for (String key : pending.keySet()) {
+            PresenceEvent e = pending.remove(key);
+            if (e != null) events.add(e);
+        }
+        if (events.isEmpty()) return;
+
+        for (PresenceEvent e : events) deliverLocal(e);
+        try {
+            redis.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new Batch(nodeId, events)));
+        } catch (Exception ex) {
+            // 휘발성 상태라 재시도하지 않는다 (다음 변화 때 다시 맞춰진다)
+            log.warn("presence 발행 실패 events={}", events.size(), ex);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Batch batch = objectMapper.readValue(message.getBody(), Batch.class);
+            if (nodeId.equals(batch.node())) return; // 자기 세션에는 이미 보냄
+            for (PresenceEvent e : batch.events()) deliverLocal(e);
+        } catch (Exception e) {
+            log.warn("presence 수신 처리 실패", e);
+        }
+    }
+
+    private void deliverLocal(PresenceEvent e) {
+        Set<OutboundSession> targets = new HashSet<>();
+        for (Long chatId : e.chatIds()) {
+            for (OutboundSession out : sessionRegistry.sessionsOf(chatId)) {
+                if (out.userId() != e.userId()) targets.add(out);
+            }
+        }
+        if (targets.isEmpty()) return;
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            Long chatId = null;
+            if (e.kind() == PresenceEvent.Kind.PRESENCE) {
+                body.put("type", "presence");
+                body.put("userId", e.userId());
+                body.put("online", e.active());
+            } else {
+                chatId = e.chatIds().get(0);
+                body.put("type", "typing");
+                body.put("chatId", chatId);
+                body.put("userId", e.userId());
+                body.put("typing", e.active());
+            }
+            TextMessage msg = new TextMessage(objectMapper.writeValueAsString(body));
+            OutboundFrame frame = new OutboundFrame(msg, msg.getPayloadLength(), chatId, e.coalesceKey());
+            for (OutboundSession out : targets) out.enqueue(frame);
+            meterRegistry.counter("chat.presence.frames", "kind", e.kind().name().toLowerCase()).increment(targets.size());
+        } catch (Exception ex) {
+            log.error("presence 전달 실패 userId={}", e.userId(), ex);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.sankim.chat_server.chat.chat.presence;
+
+import com.sankim.chat_server.chat.chat.support.NodeIdentity;
+import com.sankim.chat_server.chat.chat.ws.RoomSessionRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 접속(presence) / 입력중(typing) 상태. DB, 락, Kafka 를 전혀 쓰지 않는다 (메모리 + Redis 만).
+ *
+ * 접속
+ * - 웹소켓 접속/종료 때 ChatWebSocketHandler 가 부른다. 이 노드의 유저별 세션 수를 센다.
+ * - Redis hash chat:presence:{userId} 에 field = nodeId, value = 만료 시각(ms).
+ *   노드마다 heartbeat-ms 주기로 자기 유저들의 만료 시각을 파이프라인 1번으로 연장한다.
+ *   노드가 죽으면 그 field 는 ttl 이 지나 죽은 값이 된다 (키 자체도 PEXPIRE 로 사라짐).
+ * - 이 노드의 첫 세션인데 다른 노드에 살아 있는 field 가 없으면 → online 이벤트.
+ *   이 노드의 마지막 세션이 닫혔는데 다른 노드에도 없으면 → offline 이벤트.
+ *
+ * 입력중
+ * - 클라이언트가 입력할 때마다 typing 프레임을 보내도 "시작" 은 처음 1번만 나간다. 이후에는 만료 시각만 늘린다.
+ * - typing-ttl-ms 동안 다시 안 오면 (또는 메시지를 보내거나, 마지막 세션이 닫히면) "멈춤".
+ *
+ * 이벤트는 PresenceRelay 가 모아서(디바운스) 방 멤버 세션에만 보낸다.
+ */
+@Slf4j
+@Component
+public class PresenceService {
+
+    private static final String KEY_PREFIX = "chat:presence:";
+
+    private record TypingKey(long chatId, long userId) {
+    }
+
+    private final RoomSessionRegistry sessionRegistry;
+    private final PresenceRelay relay;
+    private final StringRedisTemplate redis;
+    private final String nodeId;
+    private final long ttlMillis;
+    private final long typingTtlMillis;
+
+    private final Map<Long, Integer> localSessions = new ConcurrentHashMap<>();
+    private final Map<TypingKey, Long> typing = new ConcurrentHashMap<>(); // → 만료 시각
+
+    public PresenceService(RoomSessionRegistry sessionRegistry,
+                           PresenceRelay relay,
+                           StringRedisTemplate redis,
+                           NodeIdentity nodeIdentity,
+                           MeterRegistry meterRegistry,
+                           @Value("${chat.presence.ttl-seconds:30}") long ttlSeconds,
+                           @Value("${chat.presence.typing-ttl-ms:5000}") long typingTtlMillis) {
+        this.sessionRegistry = sessionRegistry;
+        this.relay = relay;
+        this.redis = redis;
+        this.nodeId = nodeIdentity.nodeId();
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.typingTtlMillis = typingTtlMillis;
+
+        Gauge.builder("chat.presence.online.local", localSessions, Map::size)
+                .description("이 노드에 접속중인 유저 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.presence.typing", typing, Map::size)
+                .description("입력중 상태인 (방, 유저) 수")
+                .register(meterRegistry);
+    }
+
+    /** 세션 접속 (방 인덱스 등록 후) */
+    public void connected(Long userId) {
+        if (localSessions.merge(userId, 1, Integer::sum) != 1) return; // 이 노드에 이미 세션이 있음
+        long now = System.currentTimeMillis();
+        boolean elsewhere = aliveElsewhere(userId, now);
+        try {
+            String key = KEY_PREFIX + userId;
+            redis.opsForHash().put(key, nodeId, String.valueOf(now + ttlMillis));
+            redis.expire(key, Duration.ofMillis(ttlMillis));
+        } catch (Exception e) {
+            log.warn("presence 기록 실패 userId={}", userId, e);
+        }
+        if (!elsewhere) relay.offer(PresenceEvent.presence(userId, rooms(userId), true));
+    }
+
+    /**
+     * 세션 종료
+     * @param rooms 방 인덱스에서 빼기 전에 받아 둔 그 유저의 방들
+     */
+    public void disconnected(Long userId, Collection<Long> rooms) {
+        boolean last = localSessions.computeIfPresent(userId, (k, n) -> n > 1 ? n - 1 : null) == null;
+        if (!last) return;
+
+        typing.keySet().removeIf(k -> {
+            if (k.userId() != userId) return false;
+            relay.offer(PresenceEvent.typing(userId, k.chatId(), false));
+            return true;
+        });
+        try {
+            redis.opsForHash().delete(KEY_PREFIX + userId, nodeId);
+        } catch (Exception e) {
+            log.warn("presence 삭제 실패 userId={}", userId, e);
+        }
+        if (!aliveElsewhere(userId, System.currentTimeMillis())) {
+            relay.offer(PresenceEvent.presence(userId, List.copyOf(rooms), false));
+        }
+    }
+
+    /**
+     * 입력중 신호. 같은 방에서 이미 입력중이면 만료 시각만 늘린다.
+     * 웹소켓 스레드에서 바로 불리므로 던지지 않는다: 멤버가 아닌 방(퇴장 직후 / 조작된 프레임)이면 버리고 false.
+     */
+    public boolean typing(Long userId, Long chatId) {
+        if (chatId == null || !sessionRegistry.roomsOf(userId).contains(chatId)) return false;
+        long now = System.currentTimeMillis();
+        Long prev = typing.put(new TypingKey(chatId, userId), now + typingTtlMillis);
+        if (prev == null || prev < now) relay.offer(PresenceEvent.typing(userId, chatId, true));
+        return true;
+    }
+
+    /** 입력 멈춤 (명시적으로 / 메시지를 보냈을 때) */
+    public void stopTyping(Long userId, Long chatId) {
+        if (typing.remove(new TypingKey(chatId, userId)) != null) {
+            relay.offer(PresenceEvent.typing(userId, chatId, false));
+        }
+    }
+
+    /** 이 노드 유저들의 Redis 만료 시각 연장 (파이프라인 1번) */
+    @Scheduled(fixedDelayString = "${chat.presence.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (localSessions.isEmpty()) return;
+        String expiresAt = String.valueOf(System.currentTimeMillis() + ttlMillis);
+        try {
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection c = (StringRedisConnection) connection;
+                for (Long userId : localSessions.keySet()) {
+                    c.hSet(KEY_PREFIX + userId, nodeId, expiresAt);
+                    c.pExpire(KEY_PREFIX + userId, ttlMillis);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("presence heartbeat 실패 users={}", localSessions.size(), e);
+        }
+    }
+
+    /** 신호가 끊긴 입력중 상태 정리 */
+    @Scheduled(fixedDelayString = "${chat.presence.typing-sweep-ms:1000}")
+    public void expireTyping() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<TypingKey, Long> e : typing.entrySet()) {
+            if (e.getValue() < now && typing.remove(e.getKey(), e.getValue())) {
+                relay.offer(PresenceEvent.typing(e.getKey().userId(), e.getKey().chatId(), false));
+            }
+        }
+    }
+
+    // 다른 노드에 아직 살아 있는 세션이 있는지 (Redis 를 못 읽으면 없다고 본다)
+    private boolean aliveElsewhere(Long userId, long now) {
+        try {
+            for (Map.Entry<Object, Object> e : redis.opsForHash().entries(KEY_PREFIX + userId).entrySet()) {
+                if (!nodeId.equals(e.getKey()) && Long.parseLong((String) e.getValue()) > now) return true;
+            }
+        } catch (Exception e) {
+            log.warn("presence 조회 실패 userId={}", userId, e);
+        }
+        return false;
+    }
+
+    private List<Long> rooms(Long userId) {
+        return List.copyOf(sessionRegistry.roomsOf(userId));
+    }
+}
@@ -0,0 +1,207 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.repository.UserChatRepository;
+import com.sankim.chat_server.chat.chat.support.CacheInvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 방별 "멤버 읽음 위치" 정렬 인덱스 → 메시지별 읽은 사람 수(seenCount).
+ *
+ * 왜?
+ * - 카톡식 "1" 표시는 메시지마다 "이 메시지 이후까지 읽은 멤버 수" 가 필요하다.
+ *   매번 UserChat.lastReadMessageId 를 훑으면 화면에 그리는 메시지 수 × 쿼리다.
+ * - 방마다 멤버 읽음 위치를 정렬된 long[] 로 들고 있으면, 메시지 id 하나당 이진 탐색 1번으로 센다.
+ *     seenCount(id) = (읽음 위치 >= id 인 멤버 수) + (보낸 사람이 아직 그 위치 전이면 1, 보낸 사람은 읽은 것으로 친다)
+ *
+ * 구조 (방 1개)
+ * - users[]   : 멤버 userId 오름차순
+ * - cursors[] : users[i] 의 읽음 위치 (없으면 0)
+ * - sorted[]  : cursors 를 정렬한 것. 읽음 위치가 오르면 옛 값을 빼고 새 값을 끼워 넣는다 (멤버 수만큼 배열 이동)
+ *
+ * 갱신
+ * - 이 노드에서 읽음 처리: ReadService 가 바로 advance
+ * - 다른 노드의 읽음 처리: flush 커밋 후 무효화 버스로 "chatId,userId,cursor" 를 받아 advance (max-merge 라 중복 무해)
+ * - 입장/퇴장: 그 방을 버리고 다음 조회 때 DB 에서 다시 읽는다. TTL 로도 주기적으로 다시 읽는다.
+ */
+@Component
+public class ReadCursorIndex {
+
+    public static final String NAME = "readCursors";
+    private static final int VERSION_STRIPES = 1024;
+
+    private final UserChatRepository userChatRepo;
+    private final ReadPointerStore readPointers;
+    private final CacheInvalidationBus bus;
+    private final int maxChats;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Long, Cursors> map = new LinkedHashMap<>(256, 0.75f, true);
+    private final long[] versions = new long[VERSION_STRIPES];
+
+    public ReadCursorIndex(UserChatRepository userChatRepo,
+                           ReadPointerStore readPointers,
+                           CacheInvalidationBus bus,
+                           MeterRegistry meterRegistry,
+                           @Value("${chat.read.cursor-index.max-chats:10000}") int maxChats,
+                           @Value("${chat.read.cursor-index.ttl-seconds:60}") long ttlSeconds) {
+        this.userChatRepo = userChatRepo;
+        this.readPointers = readPointers;
+        this.bus = bus;
+        this.maxChats = maxChats;
+        this.ttlMillis = ttlSeconds * 1000L;
+
+        Gauge.builder("chat.read.cursor.chats", this, i -> i.size())
+                .description("읽음 위치 인덱스를 들고 있는 방 수")
+                .register(meterRegistry);
+
+        bus.subscribe(NAME, this::onBusMessage);
+    }
+
+    /** 목록의 각 메시지 seenCount 를 채워서 돌려준다 (같은 방 메시지들) */
+    public List<MessageResponse> withSeenCounts(Long chatId, List<MessageResponse> messages) {
+        if (messages.isEmpty()) return messages;
+        Cursors c = cursors(chatId);
+        List<MessageResponse> out = new ArrayList<>(messages.size());
+        synchronized (c) {
+            for (MessageResponse m : messages) out.add(m.withSeenCount(c.seenCount(m.id(), m.senderId())));
+        }
+        return out;
+    }
+
+    /** 읽음 위치가 올랐다 (max-merge). 인덱스에 없는 방이면 무시 (다음 로딩 때 반영됨) */
+    public void advance(Long chatId, Long userId, long cursor) {
+        Cursors c;
+        synchronized (this) {
+            versions[stripe(chatId)]++;
+            c = map.get(chatId);
+        }
+        if (c == null) return;
+        synchronized (c) {
+            c.advance(userId, cursor);
+        }
+    }
+
+    /** 다른 노드에도 읽음 위치 변경을 알린다 (flush 커밋 후) */
+    public void publish(Long chatId, Long userId, long cursor) {
+        bus.publish(NAME, chatId + "," + userId + "," + cursor);
+    }
+
+    /** 입장/퇴장 커밋 후: 모든 노드의 인덱스에서 방을 버린다 */
+    public void invalidate(Long chatId) {
+        bus.publish(NAME, String.valueOf(chatId));
+    }
+
+    private synchronized void evictLocal(Long chatId) {
+        versions[stripe(chatId)]++;
+        map.remove(chatId);
+    }
+
+    // "chatId" = 방 버리기, "chatId,userId,cursor" = 읽음 위치 올리기
+    private void onBusMessage(String key) {
+        String[] p = key.split(",");
+        if (p.length == 1) evictLocal(Long.valueOf(p[0]));
+        else if (p.length == 3) advance(Long.valueOf(p[0]), Long.valueOf(p[1]), Long.parseLong(p[2]));
+    }
+
+    private Cursors cursors(Long chatId) {
+        long version;
+        synchronized (this) {
+            Cursors c = map.get(chatId);
+            if (c != null && System.currentTimeMillis() - c.loadedAt <= ttlMillis) return c;
+            if (c != null) map.remove(chatId);
+            version = versions[stripe(chatId)];
+        }
+
+        // DB 값 + 아직 flush 안 된 값 중 큰 것
+        List<Object[]> rows = userChatRepo.findReadCursorsByChatId(chatId);
+        long[][] pairs = new long[rows.size()][];
+        for (int i = 0; i < rows.size(); i++) {
+            Long userId = (Long) rows.get(i)[0];
+            Long cursor = readPointers.effective(userId, chatId, (Long) rows.get(i)[1]);
+            pairs[i] = new long[]{userId, cursor == null ? 0L : cursor};
+        }
+        Cursors loaded = new Cursors(pairs);
+
+        synchronized (this) {
+            if (versions[stripe(chatId)] == version) { // 읽는 사이 변경이 있었으면 이번 것은 캐시 안 함
+                map.put(chatId, loaded);
+                Iterator<Cursors> it = map.values().iterator();
+                while (map.size() > maxChats && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private synchronized int size() {
+        return map.size();
+    }
+
+    private static int stripe(Long chatId) {
+        return (int) Math.floorMod(chatId, (long) VERSION_STRIPES);
+    }
+
+    /** 방 1개의 읽음 위치들. 조작은 이 객체 모니터 안에서 */
+    static final class Cursors {
+        private final long[] users;
+        private final long[] cursors;
+        private final long[] sorted;
+        private final long loadedAt = System.currentTimeMillis();
+
+        Cursors(long[][] userCursorPairs) {
+            Arrays.sort(userCursorPairs, Comparator.comparingLong(p -> p[0]));
+            int n = userCursorPairs.length;
+            this.users = new long[n];
+            this.cursors = new long[n];
+            for (int i = 0; i < n; i++) {
+                users[i] = userCursorPairs[i][0];
+                cursors[i] = userCursorPairs[i][1];
+            }
+            this.sorted = cursors.clone();
+            Arrays.sort(sorted);
+        }
+
+        void advance(long userId, long cursor) {
+            int u = Arrays.binarySearch(users, userId);
+            if (u < 0 || cursors[u] >= cursor) return; // 멤버가 아니거나 이미 더 앞까지 읽음
+            long old = cursors[u];
+            cursors[u] = cursor;
+
+            // sorted 에서 old 하나를 빼고 cursor 를 제자리에 넣는다 (old < cursor 이므로 오른쪽으로만 이동)
+            int i = lowerBound(sorted, old);
+            while (i + 1 < sorted.length && sorted[i + 1] < cursor) {
+                sorted[i] = sorted[i + 1];
+                i++;
+            }
+            sorted[i] = cursor;
+        }
+
+        long seenCount(long messageId, Long senderId) {
+            long readers = sorted.length - lowerBound(sorted, messageId);
+            if (senderId != null) {
+                int s = Arrays.binarySearch(users, senderId);
+                if (s >= 0 && cursors[s] < messageId) readers++; // 보낸 사람은 읽은 것으로 친다
+            }
+            return readers;
+        }
+
+        // value 이상이 처음 나오는 위치
+        private static int lowerBound(long[] a, long value) {
+            int lo = 0, hi = a.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] < value) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import com.sankim.chat_server.chat.chat.member.ChatMembershipChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// 커밋된 읽음 위치 / 멤버 변경을 모든 노드의 ReadCursorIndex 에 알리는 리스너
+@Component
+@RequiredArgsConstructor
+public class ReadCursorListener {
+    private final ReadCursorIndex cursorIndex;
+
+    // 읽음 위치 flush 가 커밋된 뒤 (스크롤 이벤트마다가 아니라 flush 주기마다 1번)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReadPointerMoved(ReadPointerMovedEvent event) {
+        cursorIndex.publish(event.chatId(), event.userId(), event.lastReadMessageId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMembershipChanged(ChatMembershipChangedEvent event) {
+        cursorIndex.invalidate(event.chatId());
+    }
+}
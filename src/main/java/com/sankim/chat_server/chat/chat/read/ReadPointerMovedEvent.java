@@ -0,0 +1,4 @@
+package com.sankim.chat_server.chat.chat.read;
+
+// 유저의 읽음 위치(lastReadMessageId)가 앞으로 이동했음을 알리는 이벤트
+public record ReadPointerMovedEvent(Long userId, Long chatId, Long lastReadMessageId) {}
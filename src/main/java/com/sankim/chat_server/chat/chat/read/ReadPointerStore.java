@@ -0,0 +1,151 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽음 위치(read pointer) 쓰기 모음 저장소.
+ *
+ * 왜?
+ * - 클라이언트는 스크롤하면서 "여기까지 읽음" 을 계속 보낸다. 예전에는 1건마다 트랜잭션 + UserChat 조회 + UPDATE 였고,
+ *   @Version 낙관적 락 때문에 여러 기기에서 동시에 올리면 충돌했다.
+ * - 읽음 위치는 "큰 값이 이긴다(max-merge)" 라서 중간 값들은 버려도 된다.
+ *   메모리 맵에 (userId, chatId) → 최대값만 남겨 두고, 주기적으로 배치 UPDATE 한 번에 DB 로 내린다.
+ *   → DB 쓰기가 "스크롤 이벤트당 1번" 에서 "flush 주기당 1번(배치)" 으로 준다.
+ *
+ * - UPDATE 에도 "기존 값보다 클 때만" 조건을 걸어서, 여러 노드가 각자 flush 해도 값이 뒤로 가지 않는다.
+ * - 아직 flush 안 된 값은 pending 에 있으므로, 읽는 쪽은 effective(DB 값과 pending 중 큰 값)를 쓴다.
+ * - flush 가 커밋되면 ReadPointerMovedEvent 를 내서 안읽음 카운터 등을 다시 계산하게 한다.
+ */
+@Slf4j
+@Component
+public class ReadPointerStore {
+
+    public record ReadKey(long userId, long chatId) {
+    }
+
+    private record Pending(long lastReadMessageId, long readAtMillis) {
+    }
+
+    private static final String UPDATE_SQL = """
+            update user_chat
+               set last_read_message_id = ?, last_read_at = ?, update_at = ?, version = version + 1
+             where user_id = ? and chat_id = ?
+               and (last_read_message_id is null or last_read_message_id < ?)
+            """;
+
+    private final ConcurrentHashMap<ReadKey, Pending> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    private final Counter absorbed;
+    private final Counter flushed;
+    private final Timer flushTimer;
+
+    public ReadPointerStore(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            @Value("${chat.read.flush-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+
+        this.absorbed = meterRegistry.counter("chat.read.pointer.absorbed");
+        this.flushed = meterRegistry.counter("chat.read.pointer.flushed");
+        this.flushTimer = Timer.builder("chat.read.pointer.flush")
+                .description("읽음 위치 배치 UPDATE 1회 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("chat.read.pointer.pending", pending, Map::size)
+                .description("아직 DB 에 안 내려간 읽음 위치 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 읽음 위치를 올린다 (max-merge). 블록하지 않는다.
+     * @return pending 값이 실제로 커졌으면 true (이미 더 큰 값이 있으면 false)
+     */
+    public boolean advance(Long userId, Long chatId, long lastReadMessageId) {
+        ReadKey key = new ReadKey(userId, chatId);
+        Pending incoming = new Pending(lastReadMessageId, System.currentTimeMillis());
+        Pending merged = pending.merge(key, incoming,
+                (cur, in) -> in.lastReadMessageId() > cur.lastReadMessageId() ? in : cur);
+        if (merged != incoming) {
+            absorbed.increment(); // 이미 더 큰 값이 있어서 흡수됨
+            return false;
+        }
+        return true;
+    }
+
+    /** DB 값과 아직 flush 안 된 값 중 큰 것 */
+    public Long effective(Long userId, Long chatId, Long dbValue) {
+        Pending p = pending.get(new ReadKey(userId, chatId));
+        if (p == null) return dbValue;
+        return dbValue == null ? p.lastReadMessageId() : Math.max(dbValue, p.lastReadMessageId());
+    }
+
+    @Scheduled(fixedDelayString = "${chat.read.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<Map.Entry<ReadKey, Pending>> snapshot = new ArrayList<>(pending.entrySet());
+        for (int from = 0; from < snapshot.size(); from += batchSize) {
+            List<Map.Entry<ReadKey, Pending>> chunk = snapshot.subList(from, Math.min(from + batchSize, snapshot.size()));
+            try {
+                flushChunk(chunk);
+            } catch (Exception e) {
+                log.warn("읽음 위치 flush 실패 size={} (다음 주기에 재시도)", chunk.size(), e);
+                return;
+            }
+            // flush 하는 사이 더 큰 값이 들어왔으면 남겨 두고 다음 주기에 내린다
+            for (Map.Entry<ReadKey, Pending> e : chunk) pending.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    private void flushChunk(List<Map.Entry<ReadKey, Pending>> chunk) {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(tx -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            for (Map.Entry<ReadKey, Pending> e : chunk) {
+                Pending p = e.getValue();
+                args.add(new Object[]{p.lastReadMessageId(), new Timestamp(p.readAtMillis()), now,
+                        e.getKey().userId(), e.getKey().chatId(), p.lastReadMessageId()});
+            }
+            jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+            // 커밋 후 안읽음 카운터 재계산 등
+            for (Map.Entry<ReadKey, Pending> e : chunk) {
+                eventPublisher.publishEvent(new ReadPointerMovedEvent(
+                        e.getKey().userId(), e.getKey().chatId(), e.getValue().lastReadMessageId()));
+            }
+        });
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        flushed.increment(chunk.size());
+    }
+
+    /** 종료 시 남은 값을 내린다 */
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+}
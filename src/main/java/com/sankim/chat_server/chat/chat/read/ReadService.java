@@ -1,28 +1,36 @@
 package com.sankim.chat_server.chat.chat.read;
 
-import com.sankim.chat_server.chat.chat.UserChat;
 import com.sankim.chat_server.chat.chat.api.dto.ReadUpToRequest;
-import com.sankim.chat_server.chat.chat.repository.UserChatRepository;
+import com.sankim.chat_server.chat.chat.member.ChatMemberCache;
+import com.sankim.chat_server.chat.chat.ws.ReadReceiptBroadcaster;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional; // ✅ 스프링 @Transactional 사용 권장
-import java.time.Instant;
 
+/**
+ * 읽음 처리.
+ * - DB 를 바로 건드리지 않고 ReadPointerStore 에 max-merge 로 올려 둔다. (주기적으로 배치 UPDATE)
+ * - 멤버 확인은 ChatMemberCache 로 한다 (DB 조회 없음).
+ * - 다른 멤버에게 보내는 읽음 표시는 ReadReceiptBroadcaster 가 방 단위로 모아서 보낸다.
+ */
 @Service
 @RequiredArgsConstructor
 public class ReadService {
-    private final UserChatRepository userChatRepo;
+    private final ReadPointerStore readPointers;
+    private final ChatMemberCache memberCache;
+    private final ReadCursorIndex cursorIndex;
+    private final ReadReceiptBroadcaster receipts;
 
-    @Transactional
-    public void readUpTo(Long currentUserId, Long chatId, ReadUpToRequest req) {
-        // 유저-채팅방 엔티티 조회
-        UserChat uc = userChatRepo.findByUser_IdAndChat_Id(currentUserId, chatId)
-                .orElseThrow(() -> new IllegalArgumentException("채팅방 멤버가 아님"));
-        Long lastReadId = req.lastReadMessageId();
-        // 기존 읽음 ID보다 큰 경우에만 업데이트
-        if (lastReadId != null && (uc.getLastReadMessageId() == null || uc.getLastReadMessageId() < lastReadId)) {
-            uc.setLastReadMessageId(lastReadId);
-            uc.setLastReadAt(Instant.now());
+    /** @return 읽음 위치가 실제로 앞으로 갔으면 true */
+    public boolean readUpTo(Long currentUserId, Long chatId, ReadUpToRequest req) {
+        if (!memberCache.isMember(chatId, currentUserId)) {
+            throw new IllegalArgumentException("채팅방 멤버가 아님");
         }
+        Long lastReadId = req.lastReadMessageId();
+        if (lastReadId == null) return false;
+        // 기존 읽음 ID보다 큰 경우에만 반영 (DB 쪽도 UPDATE 조건으로 한 번 더 막는다)
+        if (!readPointers.advance(currentUserId, chatId, lastReadId)) return false;
+        cursorIndex.advance(chatId, currentUserId, lastReadId); // 이 노드의 seenCount 는 바로 반영 (다른 노드는 flush 후)
+        receipts.offer(chatId, currentUserId, lastReadId);
+        return true;
     }
 }
@@ -0,0 +1,88 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.member.ChatMemberCache;
+import com.sankim.chat_server.chat.chat.member.ChatMembershipChangedEvent;
+import com.sankim.chat_server.chat.chat.message.MessageCreatedEvent;
+import com.sankim.chat_server.chat.chat.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 커밋된 변경을 안읽음 카운터에 반영하는 리스너.
+ * - 메시지: 저장한 노드에서만 실행된다 (로컬 이벤트). 다른 노드는 Kafka 로 받아도 카운터를 건드리지 않는다.
+ *   커밋한 스레드(요청 스레드 / 그룹 커밋 writer)는 방별 대기열에 [seq, senderId] 를 넣기만 한다.
+ *   flush-ms 마다 스케줄러가 방 단위로 모아 Redis 에 올린다 (방마다 Lua 1번, 전송 경로에 Redis 왕복 없음).
+ * - 증가는 seq 기준이라 중복/순서 뒤바뀐 반영이 없다. 재계산과의 경합도 seq 로 가른다 (UnreadCounterStore 참고).
+ * - Redis 실패나 종료 시 못 올린 증가분은 로그만 남긴다: 카운터는 파생 데이터이고 UnreadReconciler 가 나중에 고친다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadCounterListener {
+    private final UnreadCounterStore unreadStore;
+    private final ChatMemberCache memberCache;
+    private final MessageRepository messageRepo;
+
+    // chatId → 아직 카운터에 안 올린 메시지 [seq, senderId]
+    private final Map<Long, List<long[]>> pending = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMessageCreated(MessageCreatedEvent event) {
+        MessageResponse dto = event.dto();
+        if (dto.seq() == null) return;
+        pending.compute(dto.chatId(), (k, messages) -> {
+            if (messages == null) messages = new ArrayList<>();
+            messages.add(new long[]{dto.seq(), dto.senderId()});
+            return messages;
+        });
+    }
+
+    /** 모인 증가분을 방 단위로 올린다 */
+    @Scheduled(fixedDelayString = "${chat.unread.flush-ms:50}")
+    public void flushIncrements() {
+        for (Long chatId : pending.keySet()) {
+            List<long[]> messages = pending.remove(chatId);
+            if (messages == null) continue;
+            try {
+                unreadStore.incrementForMembers(chatId, messages, memberCache.members(chatId));
+            } catch (Exception e) {
+                log.warn("안읽음 증가 실패 chatId={} messages={}", chatId, messages.size(), e);
+            }
+        }
+    }
+
+    // 읽은 위치 이후 메시지 수로 다시 계산 (증가분 유실/중복을 여기서 바로잡는다)
+    // 세는 사이 더 뒤 메시지의 증가분이 먼저 들어왔으면 덮어쓰지 않으므로 1번 더 센다
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReadPointerMoved(ReadPointerMovedEvent event) {
+        try {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                long[] c = messageRepo.countUnreadAndSeq(event.chatId(), event.userId(), event.lastReadMessageId());
+                if (unreadStore.set(event.userId(), event.chatId(), c[0], c[1])) return;
+            }
+        } catch (Exception e) {
+            log.warn("안읽음 재계산 실패 userId={} chatId={}", event.userId(), event.chatId(), e);
+        }
+    }
+
+    // 퇴장하면 필드를 지운다. 입장은 첫 조회 때 DB 로 계산해서 채운다.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMembershipChanged(ChatMembershipChangedEvent event) {
+        if (event.joined()) return;
+        try {
+            unreadStore.remove(event.userId(), event.chatId());
+        } catch (Exception e) {
+            log.warn("안읽음 삭제 실패 userId={} chatId={}", event.userId(), event.chatId(), e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 유저별 방별 안읽음 수 (Redis 해시).
+ *
+ * 키: chat:unread:{userId}  필드: chatId → 안읽음 수, chatId:s → 그 수가 반영한 마지막 seq
+ * - 메시지 커밋 후 (UnreadCounterListener 가 모아서): 멤버마다 "마지막 seq" 보다 큰 메시지만 센다.
+ *   보낸 사람 것은 빼고 더한 뒤 마지막 seq 를 올린다 (Lua 1번, 이미 반영된 seq 는 다시 안 센다)
+ * - 읽음 처리 / 정합성 복구: DB 로 센 값과 "같은 쿼리에서 본 방 max(seq)" 로 덮어쓴다.
+ *   저장된 마지막 seq 가 그보다 크면(세는 사이 증가분이 먼저 들어옴) 덮어쓰지 않는다 → 진행 중 증가분을 잃지 않는다.
+ *   반대로 DB 값에 이미 들어간 메시지의 늦은 증가분은 seq 가 마지막 seq 이하라 무시된다.
+ * - 받은편지함: HMGET 으로 한 페이지 방들을 한 번에 읽는다.
+ * - 값이 없는 필드(새 멤버, Redis 초기화 등)는 호출자가 DB 로 계산해서 set 한다.
+ *   그 밖의 어긋남은 UnreadReconciler 가 주기적으로 UserChat.lastReadMessageId 기준으로 고친다.
+ */
+@Component
+@RequiredArgsConstructor
+public class UnreadCounterStore {
+
+    private static final String KEY_PREFIX = "chat:unread:";
+    private static final String SEQ_SUFFIX = ":s";
+    private static final int MEMBERS_PER_CALL = 500; // 큰 방은 나눠서 (Lua 한 번이 Redis 를 오래 붙잡지 않게)
+
+    // KEYS: 멤버 해시들 / ARGV[1]=chatId, ARGV[2..#KEYS+1]=멤버 id, 그 뒤로 seq, senderId 쌍
+    private static final RedisScript<Long> INCREMENT = new DefaultRedisScript<>("""
+            local field = ARGV[1]
+            local seqField = field .. ':s'
+            local n = #KEYS
+            for i = 1, n do
+              local member = ARGV[i + 1]
+              local mark = tonumber(redis.call('HGET', KEYS[i], seqField) or '0')
+              local delta, top = 0, mark
+              for j = n + 2, #ARGV, 2 do
+                local seq = tonumber(ARGV[j])
+                if seq > mark then
+                  if ARGV[j + 1] ~= member then delta = delta + 1 end
+                  if seq > top then top = seq end
+                end
+              end
+              if delta > 0 then redis.call('HINCRBY', KEYS[i], field, delta) end
+              if top > mark then redis.call('HSET', KEYS[i], seqField, top) end
+            end
+            return n
+            """, Long.class);
+
+    // ARGV: chatId, 안읽음 수, 그 수가 반영한 방 max(seq). 이미 더 뒤 seq 까지 증가분이 들어왔으면 0 (덮어쓰지 않음)
+    private static final String SET_IF_NOT_BEHIND = """
+            local seqField = ARGV[1] .. ':s'
+            local mark = tonumber(redis.call('HGET', KEYS[1], seqField) or '0')
+            if tonumber(ARGV[3]) < mark then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2], seqField, ARGV[3])
+            return 1
+            """;
+    private static final RedisScript<Long> SET = new DefaultRedisScript<>(SET_IF_NOT_BEHIND, Long.class);
+
+    private final StringRedisTemplate redis;
+
+    /**
+     * chatId 방에 커밋된 메시지들 ([seq, senderId]) 을 반영한다: 멤버마다 보낸 사람 것을 뺀 수만큼 더한다.
+     * 멤버별로 이미 반영된 seq 이하는 건너뛴다 (DB 로 다시 센 값에 들어 있거나 이미 더한 것)
+     */
+    public void incrementForMembers(Long chatId, List<long[]> messages, long[] memberIds) {
+        if (messages.isEmpty() || memberIds.length == 0) return;
+        for (int from = 0; from < memberIds.length; from += MEMBERS_PER_CALL) {
+            int to = Math.min(memberIds.length, from + MEMBERS_PER_CALL);
+            List<String> keys = new ArrayList<>(to - from);
+            List<String> args = new ArrayList<>(1 + (to - from) + messages.size() * 2);
+            args.add(String.valueOf(chatId));
+            for (int i = from; i < to; i++) {
+                keys.add(KEY_PREFIX + memberIds[i]);
+                args.add(String.valueOf(memberIds[i]));
+            }
+            for (long[] m : messages) {
+                args.add(String.valueOf(m[0]));
+                args.add(String.valueOf(m[1]));
+            }
+            redis.execute(INCREMENT, keys, args.toArray());
+        }
+    }
+
+    /**
+     * DB 로 센 값으로 덮어쓴다. seq 는 같은 쿼리에서 본 방 max(seq).
+     * @return false 면 세는 사이 더 뒤 메시지의 증가분이 먼저 반영돼 덮어쓰지 않았다 (다시 세거나 복구 잡에 맡긴다)
+     */
+    public boolean set(Long userId, Long chatId, long count, long seq) {
+        Long ok = redis.execute(SET, List.of(KEY_PREFIX + userId),
+                String.valueOf(chatId), String.valueOf(count), String.valueOf(seq));
+        return ok != null && ok == 1L;
+    }
+
+    /** 여러 [userId, chatId, 안읽음 수, max(seq)] 를 파이프라인으로 한 번에 덮어쓴다 (set 과 같은 조건) */
+    public void setAll(List<long[]> userChatCounts) {
+        if (userChatCounts.isEmpty()) return;
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection c = (StringRedisConnection) connection;
+            for (long[] v : userChatCounts) {
+                c.eval(SET_IF_NOT_BEHIND, ReturnType.INTEGER, 1,
+                        KEY_PREFIX + v[0], String.valueOf(v[1]), String.valueOf(v[2]), String.valueOf(v[3]));
+            }
+            return null;
+        });
+    }
+
+    public void remove(Long userId, Long chatId) {
+        redis.opsForHash().delete(KEY_PREFIX + userId, String.valueOf(chatId), chatId + SEQ_SUFFIX);
+    }
+
+    /** @return chatId → 안읽음 수. Redis 에 값이 없는 방은 빠져 있다 */
+    public Map<Long, Long> get(Long userId, List<Long> chatIds) {
+        Map<Long, Long> result = new HashMap<>();
+        if (chatIds.isEmpty()) return result;
+        List<Object> fields = new ArrayList<>(chatIds.size());
+        for (Long id : chatIds) fields.add(String.valueOf(id));
+        List<Object> values = redis.opsForHash().multiGet(KEY_PREFIX + userId, fields);
+        for (int i = 0; i < chatIds.size(); i++) {
+            Object v = values.get(i);
+            if (v != null) result.put(chatIds.get(i), Math.max(0, Long.parseLong(v.toString())));
+        }
+        return result;
+    }
+}
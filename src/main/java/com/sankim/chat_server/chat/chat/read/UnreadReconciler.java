@@ -0,0 +1,92 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import com.sankim.chat_server.chat.chat.repository.MessageRepository;
+import com.sankim.chat_server.chat.chat.repository.UserChatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 안읽음 카운터 정합성 복구 잡.
+ * - UserChat 을 id 순으로 batchSize 씩 훑으면서, lastReadMessageId 이후 남이 보낸 메시지 수를 DB 로 세서 Redis 에 덮어쓴다.
+ *   (실시간 증가와 같은 기준: 내가 보낸 메시지는 안읽음이 아니다)
+ * - 읽음 위치는 ReadPointerStore.effective 로 본다. 아직 flush 안 된 더 큰 값이 있으면 그 값으로 다시 센다.
+ * - Redis 유실, 리스너 실패, 노드 종료로 못 올린 증가분 등으로 생긴 어긋남을 고친다.
+ * - 센 값은 같은 쿼리에서 본 방 max(seq) 와 같이 쓴다. 세는 사이 그보다 뒤 메시지의 증가분이 먼저 들어온
+ *   (유저, 방) 은 덮어쓰지 않고 다음 주기로 넘긴다 (UnreadCounterStore 참고) → 진행 중인 증가분을 지우지 않는다.
+ * - 여러 노드 중 Redisson 락을 잡은 한 노드만 돈다.
+ */
+@Slf4j
+@Component
+public class UnreadReconciler {
+
+    private static final String LOCK = "unreadReconcileLock";
+
+    private final UserChatRepository userChatRepo;
+    private final MessageRepository messageRepo;
+    private final ReadPointerStore readPointers;
+    private final UnreadCounterStore unreadStore;
+    private final RedissonClient redissonClient;
+    private final int batchSize;
+
+    public UnreadReconciler(UserChatRepository userChatRepo,
+                            MessageRepository messageRepo,
+                            ReadPointerStore readPointers,
+                            UnreadCounterStore unreadStore,
+                            RedissonClient redissonClient,
+                            @Value("${chat.unread.reconcile.batch-size:500}") int batchSize) {
+        this.userChatRepo = userChatRepo;
+        this.messageRepo = messageRepo;
+        this.readPointers = readPointers;
+        this.unreadStore = unreadStore;
+        this.redissonClient = redissonClient;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${chat.unread.reconcile.interval-ms:600000}",
+            initialDelayString = "${chat.unread.reconcile.interval-ms:600000}")
+    public void reconcile() {
+        RLock lock = redissonClient.getLock(LOCK);
+        if (!lock.tryLock()) return;
+        try {
+            long afterId = 0;
+            long fixed = 0;
+            while (true) {
+                // [userChatId, userId, chatId, lastReadMessageId, unread, maxSeq]
+                List<Object[]> rows = userChatRepo.findUnreadCountsAfter(afterId, Limit.of(batchSize));
+                if (rows.isEmpty()) break;
+                List<long[]> counts = new ArrayList<>(rows.size());
+                for (Object[] r : rows) {
+                    afterId = ((Number) r[0]).longValue();
+                    long userId = ((Number) r[1]).longValue();
+                    long chatId = ((Number) r[2]).longValue();
+                    Long dbRead = r[3] == null ? null : ((Number) r[3]).longValue();
+                    long unread = ((Number) r[4]).longValue();
+                    long seq = r[5] == null ? 0 : ((Number) r[5]).longValue();
+                    Long effective = readPointers.effective(userId, chatId, dbRead);
+                    if (effective != null && !effective.equals(dbRead)) {
+                        long[] c = messageRepo.countUnreadAndSeq(chatId, userId, effective); // DB 컬럼이 아직 뒤처져 있음
+                        unread = c[0];
+                        seq = c[1];
+                    }
+                    counts.add(new long[]{userId, chatId, unread, seq});
+                }
+                unreadStore.setAll(counts);
+                fixed += counts.size();
+                if (rows.size() < batchSize) break;
+            }
+            log.info("[unread] 정합성 복구 완료 rows={}", fixed);
+        } catch (Exception e) {
+            log.warn("[unread] 정합성 복구 실패", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.sankim.chat_server.chat.chat.repository;
+
+import com.sankim.chat_server.chat.chat.MessageOutbox;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface MessageOutboxRepository extends JpaRepository<MessageOutbox, Long> {
+
+    // 오래된 것부터 limit 건 (PK 순서 = 대략 커밋 순서)
+    List<MessageOutbox> findByOrderByIdAsc(Limit limit);
+}
@@ -1,10 +1,16 @@
 package com.sankim.chat_server.chat.chat.repository;
 
 import com.sankim.chat_server.chat.chat.Message; // 패키지 맞게
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
@@ -17,7 +23,94 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
 
     long countByChatId(Long chatId);
 
-    long countByChatIdAndIdGreaterThan(Long chatId, Long lastReadMessageId);
+    // 여러 방의 "최신 메시지" 를 쿼리 1번으로 (받은편지함 N+1 제거)
+    // - 방마다 max(create_at) 을 idx_msg_chat_created 로 구한 뒤 그 행을 다시 조인한다.
+    // - 같은 시각 메시지가 여러 건이면 여러 행이 나올 수 있다 → 호출자가 id 큰 쪽을 고른다.
+    @Query(value = """
+            select m.*
+            from message m
+            join (select chat_id, max(create_at) as max_at
+                  from message
+                  where chat_id in (:chatIds)
+                  group by chat_id) latest
+              on m.chat_id = latest.chat_id and m.create_at = latest.max_at
+            """, nativeQuery = true)
+    List<Message> findLatestByChatIds(@Param("chatIds") Collection<Long> chatIds);
+
+    // ---- 커서(keyset) 페이지네이션: idx_msg_chat_created(chat_id, create_at [+ PK id]) 를 그대로 타고 내려간다 ----
+    // OFFSET 이 없어서 아무리 과거로 가도 "인덱스 위치 찾기 + limit 건 읽기" 비용이 같다. COUNT 도 안 한다.
+    // 조건을 "create_at <= :at AND (create_at < :at OR id < :id)" 로 쓰는 이유: 앞부분이 인덱스 범위 조건이 되도록
+
+    // 가장 최신 limit 건
+    List<Message> findByChatIdOrderByCreateAtDescIdDesc(Long chatId, Limit limit);
+
+    // 커서보다 과거 (최신순)
+    @Query("""
+            select m from Message m
+            where m.chat.id = :chatId
+              and m.createAt <= :at and (m.createAt < :at or m.id < :id)
+            order by m.createAt desc, m.id desc
+            """)
+    List<Message> findBefore(@Param("chatId") Long chatId, @Param("at") Instant at, @Param("id") Long id, Limit limit);
+
+    // 커서보다 이후 (오래된순) — 재접속 후 놓친 메시지 따라잡기용
+    @Query("""
+            select m from Message m
+            where m.chat.id = :chatId
+              and m.createAt >= :at and (m.createAt > :at or m.id > :id)
+            order by m.createAt asc, m.id asc
+            """)
+    List<Message> findAfter(@Param("chatId") Long chatId, @Param("at") Instant at, @Param("id") Long id, Limit limit);
+
+    // 메시지 id 다음부터 (오래된순) — 클라이언트가 마지막으로 본 id 만 알 때. 그 메시지의 create_at 을 서브쿼리로 찾아 쿼리 1번으로
+    @Query("""
+            select m from Message m
+            where m.chat.id = :chatId
+              and m.createAt >= (select x.createAt from Message x where x.id = :id)
+              and (m.createAt > (select x.createAt from Message x where x.id = :id) or m.id > :id)
+            order by m.createAt asc, m.id asc
+            """)
+    List<Message> findAfterMessageId(@Param("chatId") Long chatId, @Param("id") Long id, Limit limit);
+
+    // 방의 마지막 seq (uk_msg_chat_seq 인덱스로 바로 찾음) — seq 발급기 초기값 맞출 때 사용
+    @Query("select max(m.seq) from Message m where m.chat.id = :chatId")
+    Long findMaxSeqByChatId(@Param("chatId") Long chatId);
+
+    // 가장 큰 메시지 id (PK 인덱스 끝에서 바로 찾음) — ID 생성기가 재시작 후 이보다 큰 값부터 내도록
+    @Query("select max(m.id) from Message m")
+    Long findMaxId();
+
+    // 안읽음 수: 읽은 위치 이후, 내가 보낸 메시지는 뺀다 (실시간 증가도 보낸 사람은 건너뛴다)
+    // → [count, 방 max(seq)] 1행. 같은 쿼리라 두 값이 같은 시점이다 (UnreadCounterStore 가 seq 로 덮어쓰기 여부를 정함)
+    @Query("""
+            select (select count(m) from Message m
+                    where m.chat.id = c.id and m.id > :lastRead and m.sender.id <> :userId),
+                   (select max(m2.seq) from Message m2 where m2.chat.id = c.id)
+            from Chat c
+            where c.id = :chatId
+            """)
+    List<Object[]> countUnreadWithSeq(@Param("chatId") Long chatId, @Param("userId") Long userId,
+                                      @Param("lastRead") long lastRead);
+
+    /** countUnreadWithSeq 를 [count, max(seq)] 로 (방이 없거나 seq 가 없으면 0) */
+    default long[] countUnreadAndSeq(Long chatId, Long userId, long lastRead) {
+        List<Object[]> rows = countUnreadWithSeq(chatId, userId, lastRead);
+        if (rows.isEmpty()) return new long[]{0, 0};
+        Object[] r = rows.get(0);
+        return new long[]{((Number) r[0]).longValue(), r[1] == null ? 0 : ((Number) r[1]).longValue()};
+    }
+
+    // 한 유저의 여러 방 안읽음 수를 쿼리 1번으로 → [chatId, count, 방 max(seq)] (DB 의 lastReadMessageId 기준)
+    @Query("""
+            select uc.chat.id,
+                   (select count(m) from Message m
+                    where m.chat.id = uc.chat.id and m.id > coalesce(uc.lastReadMessageId, 0)
+                      and m.sender.id <> :userId),
+                   (select max(m2.seq) from Message m2 where m2.chat.id = uc.chat.id)
+            from UserChat uc
+            where uc.user.id = :userId and uc.chat.id in :chatIds
+            """)
+    List<Object[]> countUnreadByChatIds(@Param("userId") Long userId, @Param("chatIds") Collection<Long> chatIds);
 
     // ---- [선택] 기존 코드와 호환용 (당장 서비스 못 바꾸면 임시로 사용) ----
     default Optional<Message> findTopByChatIdOrderByIdDesc(Long chatId) {
@@ -1,12 +1,15 @@
 package com.sankim.chat_server.chat.chat.repository;
 
 import com.sankim.chat_server.chat.chat.UserChat;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -42,6 +45,32 @@ public interface UserChatRepository extends JpaRepository<UserChat, Long> {
     // 채팅방 참여자 수 (미래에 "인원수" 표시에 사용 가능)
     long countByChat_Id(Long chatId);
 
+    // 여러 방의 멤버를 쿼리 1번으로 → [chatId, userId] 목록 (ChatMemberCache 로딩용)
+    @Query("select uc.chat.id, uc.user.id from UserChat uc where uc.chat.id in :chatIds")
+    List<Object[]> findMembersByChatIds(@Param("chatIds") Collection<Long> chatIds);
+
+    // 안읽음 정합성 복구용: [userChatId, userId, chatId, lastReadMessageId, 그 이후 남이 보낸 메시지 수, 방 max(seq)]
+    // 를 id 순으로 limit 건씩 (max(seq) 는 수와 같은 시점 — UnreadCounterStore.setAll 의 덮어쓰기 조건)
+    @Query("""
+            select uc.id, uc.user.id, uc.chat.id, uc.lastReadMessageId,
+                   (select count(m) from Message m
+                    where m.chat.id = uc.chat.id and m.id > coalesce(uc.lastReadMessageId, 0)
+                      and m.sender.id <> uc.user.id),
+                   (select max(m2.seq) from Message m2 where m2.chat.id = uc.chat.id)
+            from UserChat uc
+            where uc.id > :afterId
+            order by uc.id
+            """)
+    List<Object[]> findUnreadCountsAfter(@Param("afterId") long afterId, Limit limit);
+
+    // 방 멤버들의 읽음 위치 → [userId, lastReadMessageId] (ReadCursorIndex 로딩용)
+    @Query("select uc.user.id, uc.lastReadMessageId from UserChat uc where uc.chat.id = :chatId")
+    List<Object[]> findReadCursorsByChatId(@Param("chatId") Long chatId);
+
+    // 유저가 참여중인 채팅방 id 목록 (웹소켓 접속 시 방별 세션 인덱스 구성에 사용)
+    @Query("select uc.chat.id from UserChat uc where uc.user.id = :userId")
+    List<Long> findChatIdsByUserId(@Param("userId") Long userId);
+
     // ------------------------------------------------------------
     // 페이지네이션 + fetch join (ManyToOne 은 페이징과 함께 안전)
     // - uc.chat 을 미리 로딩해서 OSIV(false) + LAZY 로 인한 예외 및 N+1을 예방
@@ -0,0 +1,203 @@
+package com.sankim.chat_server.chat.chat.summary;
+
+import com.sankim.chat_server.chat.chat.api.dto.ChatSummary;
+import com.sankim.chat_server.chat.chat.support.BoundedLruCache;
+import com.sankim.chat_server.chat.chat.support.CacheInvalidationBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 채팅방 요약(ChatSummary) 2단 캐시.
+ *
+ * 왜?
+ * - 받은편지함(GET /api/chats)이 클라이언트에서 가장 자주 부르는 API 인데, 열 때마다 MySQL 을 때렸다.
+ *
+ * 구조
+ * - L1: 노드 메모리(BoundedLruCache, 크기 + 짧은 TTL)
+ * - L2: Redis (기존 redisTemplate, chat:summary:{chatId}, TTL). 노드끼리 공유 → 한 노드가 읽어 두면 다른 노드도 적중
+ * - 둘 다 없으면 loader(DB) 로 한 번에 읽고 L1/L2 를 채운다.
+ * - 메시지 전송/멤버 변경 커밋 후 invalidate(chatId): L2 를 지우고, 무효화 버스로 모든 노드의 L1 을 지운다.
+ * - 읽기 시작 전에 방별 버전(스트라이프)을 적어 두고, 읽는 사이 무효화가 있었던 방은 L1/L2 에 다시 넣지 않는다.
+ *   (안 그러면 무효화 직전에 읽은 옛 요약이 L2 TTL 동안 되살아난다)
+ *
+ * 캐시 값은 "방 공통" 정보만 담는다 (unreadCount 는 유저마다 다르므로 0 으로 두고 호출자가 채운다).
+ * L2 는 Instant 직렬화 문제를 피하려고 epoch ms 숫자 필드의 Map 으로 저장한다.
+ *
+ * 메트릭: chat.cache.requests{cache=chatSummaries, tier=l1|l2, result=hit|miss}, L1 evictions/size, L2 errors
+ */
+@Slf4j
+@Component
+public class ChatSummaryCache {
+
+    public static final String NAME = "chatSummaries";
+    private static final String L2_PREFIX = "chat:summary:";
+    private static final int VERSION_STRIPES = 1024;
+
+    private final BoundedLruCache<Long, ChatSummary> l1;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheInvalidationBus bus;
+    private final Duration l2Ttl;
+    private final long[] versions = new long[VERSION_STRIPES];
+
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Errors;
+
+    public ChatSummaryCache(RedisTemplate<String, Object> redisTemplate,
+                            CacheInvalidationBus bus,
+                            MeterRegistry meterRegistry,
+                            @Value("${chat.cache.summary.l1-max-size:10000}") int l1MaxSize,
+                            @Value("${chat.cache.summary.l1-ttl-seconds:10}") long l1TtlSeconds,
+                            @Value("${chat.cache.summary.l2-ttl-seconds:300}") long l2TtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.bus = bus;
+        this.l1 = new BoundedLruCache<>(NAME, l1MaxSize, l1TtlSeconds * 1000L, meterRegistry);
+        this.l2Ttl = Duration.ofSeconds(l2TtlSeconds);
+        this.l2Hits = meterRegistry.counter("chat.cache.requests", "cache", NAME, "tier", "l2", "result", "hit");
+        this.l2Misses = meterRegistry.counter("chat.cache.requests", "cache", NAME, "tier", "l2", "result", "miss");
+        this.l2Errors = meterRegistry.counter("chat.cache.errors", "cache", NAME, "tier", "l2");
+
+        bus.subscribe(NAME, key -> evictLocal(Long.valueOf(key)));
+    }
+
+    /**
+     * chatIds 의 요약을 L1 → L2 → loader 순서로 채워서 돌려준다.
+     * @param loader 캐시에 없는 방 id 들 → 요약 (DB 조회, 한 번만 호출)
+     */
+    public Map<Long, ChatSummary> getAll(Collection<Long> chatIds,
+                                         Function<Set<Long>, Map<Long, ChatSummary>> loader) {
+        Map<Long, ChatSummary> result = new HashMap<>();
+        List<Long> l1Missing = new ArrayList<>();
+        for (Long id : chatIds) {
+            ChatSummary s = l1.get(id);
+            if (s != null) result.put(id, s);
+            else l1Missing.add(id);
+        }
+        if (l1Missing.isEmpty()) return result;
+
+        Map<Long, Long> stamps = stamps(l1Missing); // 읽기 전 버전
+        Set<Long> l2Missing = new LinkedHashSet<>(l1Missing);
+        for (Map.Entry<Long, ChatSummary> e : readL2(l1Missing).entrySet()) {
+            result.put(e.getKey(), e.getValue());
+            putIfUnchanged(e.getKey(), e.getValue(), stamps);
+            l2Missing.remove(e.getKey());
+        }
+        l2Hits.increment(l1Missing.size() - l2Missing.size());
+        l2Misses.increment(l2Missing.size());
+        if (l2Missing.isEmpty()) return result;
+
+        Map<Long, ChatSummary> loaded = loader.apply(l2Missing);
+        Map<Long, ChatSummary> fresh = new HashMap<>();
+        loaded.forEach((id, s) -> {
+            result.put(id, s);
+            // 읽는 사이 무효화됐으면 이번 응답에만 쓰고 캐시하지 않는다
+            if (putIfUnchanged(id, s, stamps)) fresh.put(id, s);
+        });
+        writeL2(fresh);
+        return result;
+    }
+
+    /** 커밋 후 호출: L2 삭제 + 모든 노드 L1 무효화 */
+    public void invalidate(Long chatId) {
+        try {
+            redisTemplate.delete(L2_PREFIX + chatId);
+        } catch (DataAccessException e) {
+            l2Errors.increment();
+            log.warn("요약 캐시 L2 삭제 실패 chatId={}", chatId, e);
+        }
+        bus.publish(NAME, chatId);
+    }
+
+    private synchronized void evictLocal(Long chatId) {
+        versions[stripe(chatId)]++;
+        l1.invalidate(chatId);
+    }
+
+    private synchronized Map<Long, Long> stamps(Collection<Long> chatIds) {
+        Map<Long, Long> stamps = new HashMap<>();
+        for (Long id : chatIds) stamps.put(id, versions[stripe(id)]);
+        return stamps;
+    }
+
+    // 버전 비교와 L1 저장을 한 락 안에서 (사이에 무효화가 끼어들지 못하게)
+    private synchronized boolean putIfUnchanged(Long chatId, ChatSummary summary, Map<Long, Long> stamps) {
+        if (versions[stripe(chatId)] != stamps.get(chatId)) return false;
+        l1.put(chatId, summary);
+        return true;
+    }
+
+    private static int stripe(Long chatId) {
+        return (int) Math.floorMod(chatId, (long) VERSION_STRIPES);
+    }
+
+    // ---- L2 (Redis) : 실패해도 DB 로 넘어가면 되므로 예외를 밖으로 내지 않는다 ----
+
+    private Map<Long, ChatSummary> readL2(List<Long> chatIds) {
+        Map<Long, ChatSummary> found = new HashMap<>();
+        try {
+            List<String> keys = chatIds.stream().map(id -> L2_PREFIX + id).toList();
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values == null) return found;
+            for (int i = 0; i < chatIds.size(); i++) {
+                if (values.get(i) instanceof Map<?, ?> m) found.put(chatIds.get(i), fromMap(m));
+            }
+        } catch (Exception e) {
+            l2Errors.increment();
+            log.warn("요약 캐시 L2 조회 실패", e);
+        }
+        return found;
+    }
+
+    private void writeL2(Map<Long, ChatSummary> summaries) {
+        if (summaries.isEmpty()) return;
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    summaries.forEach((id, s) -> operations.opsForValue().set(L2_PREFIX + id, toMap(s), l2Ttl));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            l2Errors.increment();
+            log.warn("요약 캐시 L2 저장 실패", e);
+        }
+    }
+
+    private static Map<String, Object> toMap(ChatSummary s) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("chatId", s.chatId());
+        m.put("type", s.type());
+        m.put("title", s.title());
+        m.put("preview", s.lastMessagePreview());
+        m.put("lastAt", s.lastMessageAt() == null ? null : s.lastMessageAt().toEpochMilli());
+        m.put("memberCount", s.memberCount());
+        return m;
+    }
+
+    private static ChatSummary fromMap(Map<?, ?> m) {
+        Number lastAt = (Number) m.get("lastAt");
+        Number memberCount = (Number) m.get("memberCount");
+        return new ChatSummary(
+                ((Number) m.get("chatId")).longValue(),
+                (String) m.get("type"),
+                (String) m.get("title"),
+                (String) m.get("preview"),
+                lastAt == null ? null : Instant.ofEpochMilli(lastAt.longValue()),
+                memberCount == null ? 0 : memberCount.intValue(),
+                0);
+    }
+}
@@ -0,0 +1,25 @@
+package com.sankim.chat_server.chat.chat.summary;
+
+import com.sankim.chat_server.chat.chat.member.ChatMembershipChangedEvent;
+import com.sankim.chat_server.chat.chat.message.MessageCreatedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// 메시지 전송 / 입장·퇴장이 커밋된 뒤 그 방의 요약 캐시를 모든 노드에서 무효화
+@Component
+@RequiredArgsConstructor
+public class ChatSummaryInvalidationListener {
+    private final ChatSummaryCache summaryCache;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMessageCreated(MessageCreatedEvent event) {
+        summaryCache.invalidate(event.dto().chatId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMembershipChanged(ChatMembershipChangedEvent event) {
+        summaryCache.invalidate(event.chatId());
+    }
+}
@@ -0,0 +1,83 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BinaryWriter 로 쓴 포맷을 읽는 쪽.
+ * - 형식이 깨진 입력은 IllegalArgumentException 으로 알린다 (전역 예외 처리와 같은 타입).
+ */
+public final class BinaryReader {
+
+    private final ByteBuffer buf;
+
+    public BinaryReader(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    public BinaryReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    public boolean hasRemaining() {
+        return buf.hasRemaining();
+    }
+
+    public int remaining() {
+        return buf.remaining();
+    }
+
+    public int readByte() {
+        require(1);
+        return buf.get() & 0xFF;
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = buf.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("varint 가 너무 깁니다");
+    }
+
+    public long readZigZag() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public int readLength() {
+        long len = readVarLong();
+        if (len < 0 || len > buf.remaining()) throw new IllegalArgumentException("길이 필드가 잘못되었습니다: " + len);
+        return (int) len;
+    }
+
+    public String readString() {
+        int len = readLength();
+        String s;
+        if (buf.hasArray()) {
+            s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+            buf.position(buf.position() + len);
+        } else {
+            byte[] bytes = new byte[len];
+            buf.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    /** 다음 len 바이트를 별도 리더로 잘라낸다 (길이 프리픽스 프레임용) */
+    public BinaryReader slice(int len) {
+        require(len);
+        ByteBuffer sub = buf.slice();
+        sub.limit(len);
+        buf.position(buf.position() + len);
+        return new BinaryReader(sub);
+    }
+
+    private void require(int n) {
+        if (buf.remaining() < n) throw new IllegalArgumentException("프레임이 잘렸습니다");
+    }
+}
@@ -0,0 +1,82 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 작은 바이너리 포맷을 손으로 쓰기 위한 버퍼 (웹소켓 바이너리 프레임 등에서 사용).
+ * - 정수는 varint(LEB128, 7비트씩) 로 써서 작은 id/길이는 1~3바이트로 끝난다.
+ * - 문자열은 "varint 길이 + UTF-8 바이트".
+ * - 스레드 안전하지 않음: 한 번 인코딩할 때 하나씩 만들어 쓴다.
+ */
+public final class BinaryWriter {
+
+    private byte[] buf;
+    private int pos;
+
+    public BinaryWriter(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public BinaryWriter writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+        return this;
+    }
+
+    /** 부호 없는 varint. 음수를 넣으면 10바이트가 되므로 음수가 올 수 있으면 writeZigZag 사용 */
+    public BinaryWriter writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    /** 음수도 짧게: zigzag 변환 후 varint */
+    public BinaryWriter writeZigZag(long v) {
+        return writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    public BinaryWriter writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    public BinaryWriter writeBytes(byte[] src, int off, int len) {
+        ensure(len);
+        System.arraycopy(src, off, buf, pos, len);
+        pos += len;
+        return this;
+    }
+
+    public int size() {
+        return pos;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    /** 복사 없이 내부 배열을 감싼 읽기 전용 버퍼 (이후 이 writer 에 쓰면 안 됨) */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, pos).asReadOnlyBuffer();
+    }
+
+    /** "varint(길이) + 지금까지 쓴 내용" 을 새 배열 한 번 복사로 만든다 (길이 프리픽스 프레임용) */
+    public ByteBuffer toLengthPrefixedByteBuffer() {
+        int prefix = 1;
+        for (long v = pos; (v & ~0x7FL) != 0; v >>>= 7) prefix++;
+        BinaryWriter out = new BinaryWriter(prefix + pos);
+        out.writeVarLong(pos).writeBytes(buf, 0, pos);
+        return out.toByteBuffer();
+    }
+
+    private void ensure(int n) {
+        if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+    }
+}
@@ -0,0 +1,84 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 크기 + TTL 로 제한되는 프로세스 내 LRU 캐시 (L1 용).
+ * - 최대 maxSize 개, 넘치면 가장 오래 안 쓴 것부터 버린다.
+ * - 넣은 지 ttlMillis 가 지난 값은 없는 것으로 본다. (다른 노드의 무효화를 놓쳐도 이 시간 안에 복구)
+ * - 조작은 모니터로 짧게 보호한다. 값 로딩(DB/Redis)은 호출자가 락 밖에서 한다.
+ *
+ * 메트릭 (cache 태그 = 캐시 이름, tier = l1)
+ * - chat.cache.requests{result=hit|miss}, chat.cache.evictions{reason=size|expired}, chat.cache.size
+ */
+public class BoundedLruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+
+    public BoundedLruCache(String name, int maxSize, long ttlMillis, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.hits = registry.counter("chat.cache.requests", "cache", name, "tier", "l1", "result", "hit");
+        this.misses = registry.counter("chat.cache.requests", "cache", name, "tier", "l1", "result", "miss");
+        this.sizeEvictions = registry.counter("chat.cache.evictions", "cache", name, "tier", "l1", "reason", "size");
+        this.expirations = registry.counter("chat.cache.evictions", "cache", name, "tier", "l1", "reason", "expired");
+        Gauge.builder("chat.cache.size", this, BoundedLruCache::size)
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .register(registry);
+    }
+
+    /** @return 값, 없거나 만료됐으면 null */
+    public synchronized V get(K key) {
+        Entry<V> e = map.get(key);
+        if (e != null && e.expiresAt() <= System.currentTimeMillis()) {
+            map.remove(key);
+            expirations.increment();
+            e = null;
+        }
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        Iterator<K> it = map.keySet().iterator();
+        while (map.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+}
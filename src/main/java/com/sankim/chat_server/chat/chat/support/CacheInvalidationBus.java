@@ -0,0 +1,69 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 노드 간 캐시 무효화 버스 (Redis pub/sub).
+ * - 한 노드에서 데이터가 바뀌면 "캐시이름:키" 를 채널에 발행 → 모든 노드(자기 포함)가 받아서 L1 에서 지운다.
+ * - pub/sub 은 유실될 수 있다 (구독 끊김 등). 그래서 L1 에는 항상 짧은 TTL 을 같이 건다.
+ * - 발행한 노드는 구독 경로를 기다리지 않도록 자기 핸들러를 바로 한 번 호출한다.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "chat:cache:invalidate";
+
+    private final StringRedisTemplate redis;
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redis, RedisMessageListenerContainer container) {
+        this.redis = redis;
+        container.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /** cacheName 으로 들어온 무효화 키를 처리할 핸들러 등록 */
+    public void subscribe(String cacheName, Consumer<String> handler) {
+        handlers.put(cacheName, handler);
+    }
+
+    public void publish(String cacheName, Object key) {
+        String k = String.valueOf(key);
+        dispatch(cacheName, k);
+        try {
+            redis.convertAndSend(CHANNEL, cacheName + ":" + k);
+        } catch (Exception e) {
+            // 다른 노드는 TTL 로 복구된다
+            log.warn("캐시 무효화 발행 실패 cache={} key={}", cacheName, k, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf(':');
+        if (sep <= 0) return;
+        dispatch(body.substring(0, sep), body.substring(sep + 1));
+    }
+
+    private void dispatch(String cacheName, String key) {
+        Consumer<String> h = handlers.get(cacheName);
+        if (h == null) return;
+        try {
+            h.accept(key);
+        } catch (Exception e) {
+            log.warn("캐시 무효화 처리 실패 cache={} key={}", cacheName, key, e);
+        }
+    }
+}
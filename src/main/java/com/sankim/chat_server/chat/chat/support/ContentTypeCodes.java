@@ -0,0 +1,40 @@
+package com.sankim.chat_server.chat.chat.support;
+
+/**
+ * contentType 1바이트 코드 (웹소켓 바이너리 프레임 / Kafka 메시지 레코드 공통).
+ * - 0 = null, 1.. = 아래 테이블 (인덱스 + 1), 0x7F = 문자열이 뒤따름
+ * - 두 포맷이 같은 테이블을 써야 하므로 여기 한 군데에만 둔다.
+ *   뒤에만 추가할 것 (순서를 바꾸면 이미 나간 프레임/레코드를 잘못 읽는다)
+ */
+public final class ContentTypeCodes {
+
+    private static final int CT_NULL = 0;
+    private static final int CT_INLINE = 0x7F;
+    private static final String[] CONTENT_TYPES = {"TEXT", "IMAGE", "FILE"};
+
+    private ContentTypeCodes() {
+    }
+
+    public static void write(BinaryWriter w, String contentType) {
+        if (contentType == null) {
+            w.writeByte(CT_NULL);
+            return;
+        }
+        for (int i = 0; i < CONTENT_TYPES.length; i++) {
+            if (CONTENT_TYPES[i].equals(contentType)) {
+                w.writeByte(i + 1);
+                return;
+            }
+        }
+        w.writeByte(CT_INLINE).writeString(contentType);
+    }
+
+    /** @throws IllegalArgumentException 모르는 코드 */
+    public static String read(BinaryReader r) {
+        int code = r.readByte();
+        if (code == CT_NULL) return null;
+        if (code == CT_INLINE) return r.readString(); // 사용자 입력이라 intern 하지 않는다
+        if (code > CONTENT_TYPES.length) throw new IllegalArgumentException("알 수 없는 contentType 코드: " + code);
+        return CONTENT_TYPES[code - 1];
+    }
+}
@@ -0,0 +1,44 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+
+/**
+ * 이 서버 인스턴스(노드)의 식별자.
+ * - 여러 대를 띄웠을 때 "이 이벤트를 내가 만든 건지" 구분하거나, 노드마다 다른 Kafka consumer group 을 쓰는 데 사용한다.
+ * - chat.node.id 로 지정하는 것을 권장 (재시작해도 같은 값이어야 consumer group 이 쌓이지 않는다).
+ *   비어 있으면 "호스트명-포트" 로 만든다.
+ */
+@Slf4j
+@Component
+public class NodeIdentity {
+
+    private final String nodeId;
+
+    public NodeIdentity(@Value("${chat.node.id:}") String configured,
+                        @Value("${server.port:8080}") int port) {
+        this.nodeId = StringUtils.hasText(configured) ? configured : hostName() + "-" + port;
+        log.info("[node] nodeId={}", nodeId);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /** 노드마다 다른 consumer group → 모든 노드가 토픽의 모든 메시지를 받는다 (각자 로컬 세션에만 전달) */
+    public String consumerGroup() {
+        return "chat-consumer-" + nodeId;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "localhost";
+        }
+    }
+}
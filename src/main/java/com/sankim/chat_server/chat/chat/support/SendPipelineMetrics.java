@@ -0,0 +1,97 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메시지 전송 경로 단계별 계측 (sendMessage 지연이 어디서 나는지).
+ *
+ *   chat.send.stage{stage}            : 단계별 소요 시간 (히스토그램 → Prometheus 에서 분위수 계산)
+ *     membership  멤버 확인 (ChatMemberCache, 캐시 미스면 DB)
+ *     sequence    방 순번 발급 (Redis INCR)
+ *     transaction 트랜잭션 전체 = INSERT flush + 아웃박스 + 커밋 (그룹 커밋이면 배치 1개)
+ *     kafka_ack   아웃박스 릴레이 send → 브로커 ack
+ *     broadcast   커밋 후 이 노드 세션 큐에 넣기까지 (path 태그 = local | kafka)
+ *   chat.send.duration                : 호출자가 본 sendMessage 전체 시간 (result = ok | error)
+ *   chat.ws.broadcast.fanout          : 메시지 1건이 들어간 세션 수 분포
+ *   chat.ws.broadcast.failures{reason}: 브로드캐스트 실패 (serialize | rejected)
+ *
+ * 태그는 전부 고정된 몇 개 값이라 카디널리티가 늘지 않는다. 미터는 미리 만들어 두고 기록만 한다 (조회/할당 없음).
+ */
+@Component
+public class SendPipelineMetrics {
+
+    public enum Stage {
+        MEMBERSHIP, SEQUENCE, TRANSACTION, KAFKA_ACK;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Timer broadcastLocal;
+    private final Timer broadcastKafka;
+    private final Timer sendOk;
+    private final Timer sendError;
+    private final DistributionSummary fanout;
+    private final Counter serializeFailures;
+    private final Counter rejected;
+
+    public SendPipelineMetrics(MeterRegistry registry) {
+        for (Stage s : Stage.values()) stages.put(s, stageTimer(registry, s.tag(), "none"));
+        this.broadcastLocal = stageTimer(registry, "broadcast", "local");
+        this.broadcastKafka = stageTimer(registry, "broadcast", "kafka");
+        this.sendOk = sendTimer(registry, "ok");
+        this.sendError = sendTimer(registry, "error");
+        this.fanout = DistributionSummary.builder("chat.ws.broadcast.fanout")
+                .description("메시지 1건이 들어간 세션 수")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.serializeFailures = registry.counter("chat.ws.broadcast.failures", "reason", "serialize");
+        this.rejected = registry.counter("chat.ws.broadcast.failures", "reason", "rejected");
+    }
+
+    public void record(Stage stage, long startedNanos) {
+        stages.get(stage).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSend(long startedNanos, boolean ok) {
+        (ok ? sendOk : sendError).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** @param viaKafka 다른 노드에서 저장돼 Kafka 로 받은 메시지면 true */
+    public void recordBroadcast(long startedNanos, boolean viaKafka, int sessions, int rejectedSessions) {
+        (viaKafka ? broadcastKafka : broadcastLocal).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        fanout.record(sessions);
+        if (rejectedSessions > 0) rejected.increment(rejectedSessions);
+    }
+
+    public void broadcastSerializeFailed() {
+        serializeFailures.increment();
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String stage, String path) {
+        return Timer.builder("chat.send.stage")
+                .description("메시지 전송 경로 단계별 소요 시간")
+                .tag("stage", stage)
+                .tag("path", path)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer sendTimer(MeterRegistry registry, String result) {
+        return Timer.builder("chat.send.duration")
+                .description("sendMessage 호출 전체 시간 (호출자 기준)")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간순으로 정렬되는 64비트 ID 생성기 (Snowflake 방식).
+ *
+ * 비트 구성 (부호 비트 0)
+ * - 41비트: EPOCH(2024-01-01 UTC) 이후 밀리초  → 약 69년
+ * - 10비트: worker id (노드 번호, 0~1023)       → 노드끼리 겹치지 않는다
+ * - 12비트: 같은 밀리초 안의 순번 (0~4095)
+ *
+ * 성질
+ * - 락 없음: (시각, 순번) 상태를 AtomicLong 하나에 담아 CAS 로만 갱신한다.
+ * - 노드 안에서 단조 증가: 시계가 뒤로 가도(NTP 보정 등) 마지막 시각을 계속 쓰고 순번만 올린다.
+ *   순번이 바닥나면 논리 시각을 1ms 앞당겨 쓴다. (실제 시계가 따라잡을 때까지)
+ * - 재시작 안전: 생성 시 floorId(이 노드가 이미 썼을 수 있는 가장 큰 ID)를 받아 그보다 큰 값부터 낸다.
+ */
+public final class SnowflakeIdGenerator {
+
+    public static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    public static final int WORKER_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_BITS + SEQUENCE_BITS;
+
+    private final long workerBits;
+    private final LongSupplier clock;
+    // 상위 비트: 마지막으로 쓴 논리 시각(EPOCH 기준 ms), 하위 12비트: 그 시각의 순번
+    private final AtomicLong state;
+
+    public SnowflakeIdGenerator(long workerId, long floorId) {
+        this(workerId, floorId, System::currentTimeMillis);
+    }
+
+    // 테스트에서 시계 역행/같은 밀리초를 재현하려고 시계를 주입한다
+    SnowflakeIdGenerator(long workerId, long floorId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId 는 0~" + MAX_WORKER_ID + " 사이여야 합니다: " + workerId);
+        }
+        this.workerBits = workerId << SEQUENCE_BITS;
+        this.clock = clock;
+        // floorId 다음 ms 를 마지막 시각으로 두고 시작 → 시계가 그보다 뒤에 있어도 floorId 보다 큰 값만 나온다
+        long floorMillis = floorId > 0 ? (floorId >>> TIMESTAMP_SHIFT) + 1 : 0;
+        this.state = new AtomicLong(floorMillis << SEQUENCE_BITS);
+    }
+
+    public long nextId() {
+        while (true) {
+            long prev = state.get();
+            long lastMillis = prev >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;           // 새 밀리초: 순번 0 부터
+            } else if ((prev & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = prev + 1;                        // 같은 밀리초(또는 시계 역행): 순번만 증가
+            } else {
+                next = (lastMillis + 1) << SEQUENCE_BITS; // 순번 소진: 논리 시각을 1ms 빌려 쓴다
+            }
+            if (state.compareAndSet(prev, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return millis << TIMESTAMP_SHIFT | workerBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /** ID 에 담긴 생성 시각 (epoch ms) */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+}
@@ -0,0 +1,150 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.api.dto.SendMessageRequest;
+import com.sankim.chat_server.chat.chat.support.BinaryReader;
+import com.sankim.chat_server.chat.chat.support.BinaryWriter;
+import com.sankim.chat_server.chat.chat.support.ContentTypeCodes;
+import org.springframework.web.socket.BinaryMessage;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 바이너리 서브프로토콜(chat.bin.v1) 인코더/디코더.
+ *
+ * 왜?
+ * - JSON 파싱/렌더링(필드명, ISO 시간 문자열)이 메시지량이 많을 때 CPU/대역폭을 크게 먹는다.
+ *   바이너리에서는 필드 순서가 고정이라 이름이 없고, 숫자는 varint, 시간은 epoch millis 이다.
+ *
+ * 포맷 (웹소켓 바이너리 메시지 1개 = 프레임 1개 이상)
+ *   frame   := varint(length) body         // length = body 바이트 수
+ *   body    := type(1B) fields...
+ *   SEND    (0x01, 클라 → 서버) : chatId, contentType, content [, clientMessageId]  (마지막 필드는 생략 가능)
+ *   MESSAGE (0x02, 서버 → 클라) : id, chatId, seq, senderId, contentType, content, createdAtMillis, seenCount
+ *   (seq 가 없는 예전 메시지는 0)
+ *   READ    (0x03, 클라 → 서버) : chatId, lastReadMessageId
+ *   TYPING  (0x04, 클라 → 서버) : chatId, typing(1B: 1 = 입력중, 0 = 멈춤)
+ *   RESUME  (0x05, 클라 → 서버) : count, (chatId, lastSeenMessageId) × count
+ *   contentType := 1바이트 코드 (ContentTypeCodes: 0 = null, 1.. = 자주 쓰는 타입 인턴 테이블, 0x7F = 문자열이 뒤따름)
+ *   숫자 필드    := varint, 문자열 := varint(길이) + UTF-8
+ *
+ * 제어 프레임(resync 등)은 바이너리 세션에도 JSON 텍스트 프레임으로 보낸다. (순수 WebSocket 은 둘을 섞을 수 있음)
+ */
+public final class BinaryFrameCodec {
+
+    /** 협상되는 서브프로토콜 이름 */
+    public static final String PROTOCOL = "chat.bin.v1";
+
+    static final int TYPE_SEND = 0x01;
+    static final int TYPE_MESSAGE = 0x02;
+    static final int TYPE_READ = 0x03;
+    static final int TYPE_TYPING = 0x04;
+    static final int TYPE_RESUME = 0x05;
+
+    private BinaryFrameCodec() {
+    }
+
+    /** 브로드캐스트용: 한 번 인코딩해서 여러 세션이 같은 바이트 배열을 공유한다 */
+    public static BinaryMessage encodeMessage(MessageResponse dto) {
+        BinaryWriter body = new BinaryWriter(32 + dto.content().length() * 3);
+        body.writeByte(TYPE_MESSAGE)
+                .writeVarLong(dto.id())
+                .writeVarLong(dto.chatId())
+                .writeVarLong(dto.seq() == null ? 0 : dto.seq())
+                .writeVarLong(dto.senderId());
+        ContentTypeCodes.write(body, dto.contentType());
+        body.writeString(dto.content())
+                .writeVarLong(dto.createdAt() == null ? 0 : dto.createdAt().toEpochMilli())
+                .writeVarLong(dto.seenCount());
+        return new BinaryMessage(frame(body));
+    }
+
+    /** 클라이언트 쪽 인코딩 (테스트/벤치마크/자바 클라이언트용) */
+    public static BinaryMessage encodeSend(SendMessageRequest req) {
+        BinaryWriter body = new BinaryWriter(16 + req.content().length() * 3);
+        body.writeByte(TYPE_SEND).writeVarLong(req.chatId());
+        ContentTypeCodes.write(body, req.contentType());
+        body.writeString(req.content());
+        if (req.clientMessageId() != null) body.writeString(req.clientMessageId());
+        return new BinaryMessage(frame(body));
+    }
+
+    /** 클라이언트 쪽 인코딩: 읽음 처리 */
+    public static BinaryMessage encodeRead(long chatId, long lastReadMessageId) {
+        BinaryWriter body = new BinaryWriter(12);
+        body.writeByte(TYPE_READ).writeVarLong(chatId).writeVarLong(lastReadMessageId);
+        return new BinaryMessage(frame(body));
+    }
+
+    /** 클라이언트 쪽 인코딩: 입력중 / 입력 멈춤 */
+    public static BinaryMessage encodeTyping(long chatId, boolean typing) {
+        BinaryWriter body = new BinaryWriter(8);
+        body.writeByte(TYPE_TYPING).writeVarLong(chatId).writeByte(typing ? 1 : 0);
+        return new BinaryMessage(frame(body));
+    }
+
+    /** 클라이언트 쪽 인코딩: 재접속 따라잡기 요청 (chatId → 마지막으로 본 메시지 id) */
+    public static BinaryMessage encodeResume(Map<Long, Long> lastSeen) {
+        BinaryWriter body = new BinaryWriter(4 + lastSeen.size() * 12);
+        body.writeByte(TYPE_RESUME).writeVarLong(lastSeen.size());
+        lastSeen.forEach((chatId, id) -> body.writeVarLong(chatId).writeVarLong(id));
+        return new BinaryMessage(frame(body));
+    }
+
+    /** 수신한 바이너리 메시지 안의 프레임들(SEND / READ / TYPING / RESUME)을 꺼낸다 */
+    public static List<InboundFrame> decodeInbound(ByteBuffer payload) {
+        BinaryReader in = new BinaryReader(payload);
+        List<InboundFrame> out = new ArrayList<>(1);
+        while (in.hasRemaining()) {
+            BinaryReader body = in.slice(in.readLength());
+            int type = body.readByte();
+            switch (type) {
+                case TYPE_SEND -> {
+                    long chatId = body.readVarLong();
+                    String contentType = ContentTypeCodes.read(body);
+                    String content = body.readString();
+                    String clientMessageId = body.hasRemaining() ? body.readString() : null;
+                    out.add(new InboundFrame.Send(new SendMessageRequest(chatId, content, contentType, clientMessageId)));
+                }
+                case TYPE_READ -> out.add(new InboundFrame.Read(body.readVarLong(), body.readVarLong()));
+                case TYPE_TYPING -> out.add(new InboundFrame.Typing(body.readVarLong(), body.readByte() != 0));
+                case TYPE_RESUME -> {
+                    long count = body.readVarLong();
+                    Map<Long, Long> lastSeen = new LinkedHashMap<>();
+                    for (long i = 0; i < count; i++) lastSeen.put(body.readVarLong(), body.readVarLong());
+                    out.add(new InboundFrame.Resume(lastSeen));
+                }
+                default -> throw new IllegalArgumentException("지원하지 않는 프레임 타입: " + type);
+            }
+        }
+        return out;
+    }
+
+    /** MESSAGE 프레임 디코딩 (클라이언트 쪽 / 테스트용) */
+    public static MessageResponse decodeMessage(ByteBuffer payload) {
+        BinaryReader in = new BinaryReader(payload);
+        BinaryReader body = in.slice(in.readLength());
+        int type = body.readByte();
+        if (type != TYPE_MESSAGE) throw new IllegalArgumentException("지원하지 않는 프레임 타입: " + type);
+        long id = body.readVarLong();
+        long chatId = body.readVarLong();
+        long seq = body.readVarLong();
+        long senderId = body.readVarLong();
+        String contentType = ContentTypeCodes.read(body);
+        String content = body.readString();
+        long createdAt = body.readVarLong();
+        long seenCount = body.readVarLong();
+        return new MessageResponse(id, chatId, seq == 0 ? null : seq, senderId, contentType, content,
+                createdAt == 0 ? null : Instant.ofEpochMilli(createdAt), seenCount);
+    }
+
+    // body 앞에 varint 길이를 붙여 하나의 프레임으로 만든다
+    private static ByteBuffer frame(BinaryWriter body) {
+        return body.toLengthPrefixedByteBuffer();
+    }
+}
@@ -4,67 +4,298 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.api.dto.MessageSlice;
+import com.sankim.chat_server.chat.chat.api.dto.ReadUpToRequest;
 import com.sankim.chat_server.chat.chat.api.dto.SendMessageRequest;
 import com.sankim.chat_server.chat.chat.message.MessageService;
+import com.sankim.chat_server.chat.chat.presence.PresenceService;
+import com.sankim.chat_server.chat.chat.read.ReadService;
+import com.sankim.chat_server.chat.chat.repository.UserChatRepository;
+import com.sankim.chat_server.chat.chat.support.SendPipelineMetrics;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
 
 /**
  * STOMP를 사용하지 않고 순수 WebSocket/SockJS로 채팅을 처리하는 핸들러.
- * - 세션 속성의 userId를 기준으로 세션을 관리합니다.
+ * - 세션 속성의 userId를 기준으로 세션을 관리합니다. (유저당 여러 세션 허용)
+ * - 접속 시 유저의 참여 방 목록으로 방별 세션 인덱스(RoomSessionRegistry)를 채웁니다.
  * - 들어온 JSON 메시지를 DB에 저장한 뒤, 커밋 후 브로드캐스트를 이벤트로 처리합니다.
+ *   저장 요청은 웹소켓 스레드가 아니라 방별 레인(InboundDispatcher)에서 넣고(커밋까지 기다리지 않음),
+ *   저장이 끝나면 보낸 세션에 ack / nack 프레임으로 결과를 알립니다.
+ *     {"type":"ack","chatId":1,"clientMessageId":"c-1","messageId":123,"seq":45}  /  {"type":"nack","chatId":1,"clientMessageId":"c-1","reason":"overloaded"}
+ *   clientMessageId 를 붙여 보내면 재전송해도 한 번만 저장된다 (ack 는 처음 결과).
+ * - 브로드캐스트는 그 방 멤버의 세션에만, 세션별 송신 큐(OutboundSession)를 통해 보냅니다.
+ *   커밋한 스레드는 큐에 넣기만 하고 바로 돌아갑니다. (느린 클라이언트가 다른 세션을 막지 않음)
+ * - 순수 WebSocket 클라이언트는 서브프로토콜 chat.bin.v1 을 협상하면 바이너리 프레임(BinaryFrameCodec)으로,
+ *   그 외(SockJS, chat.json.v1, 미지정)는 지금처럼 JSON 텍스트로 주고받습니다.
+ * - 재접속한 클라이언트는 resume 프레임(방별 마지막으로 본 id)을 보내면 놓친 메시지를 REST 조회 없이 받습니다.
+ * - 접속/종료와 typing 프레임은 PresenceService 로만 간다 (DB/Kafka 를 타지 않음).
+ * - 읽음 처리(READ 프레임)의 결과인 읽음 표시는 ReadReceiptBroadcaster 가 방 단위로 모아서 {"type":"receipts"} 프레임으로 보냅니다.
  */
 @Slf4j
 @Component
-public class ChatWebSocketHandler extends TextWebSocketHandler {
+public class ChatWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
     private final MessageService messageService;
+    private final ReadService readService;
     private final ObjectMapper objectMapper;
-    private final Map<Long, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final UserChatRepository userChatRepo;
+    private final RoomSessionRegistry sessionRegistry;
+    private final OutboundSessionFactory outboundFactory;
+    private final PresenceService presence;
+    private final InboundDispatcher inbound;
+    private final Validator validator;
+    private final SendPipelineMetrics pipelineMetrics;
+    private final int resumeMaxMessages;
+
+    private static final String OUTBOUND_ATTR = "outbound";
+    private static final List<String> SUB_PROTOCOLS = List.of(BinaryFrameCodec.PROTOCOL, "chat.json.v1");
 
     @Autowired
-    public ChatWebSocketHandler(@Lazy MessageService messageService) {
+    public ChatWebSocketHandler(@Lazy MessageService messageService,
+                                ReadService readService,
+                                UserChatRepository userChatRepo,
+                                RoomSessionRegistry sessionRegistry,
+                                OutboundSessionFactory outboundFactory,
+                                PresenceService presence,
+                                InboundDispatcher inbound,
+                                Validator validator,
+                                SendPipelineMetrics pipelineMetrics,
+                                @Value("${chat.ws.resume.max-messages:200}") int resumeMaxMessages) {
         this.messageService = messageService;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.readService = readService;
+        this.userChatRepo = userChatRepo;
+        this.sessionRegistry = sessionRegistry;
+        this.outboundFactory = outboundFactory;
+        this.presence = presence;
+        this.inbound = inbound;
+        this.validator = validator;
+        this.pipelineMetrics = pipelineMetrics;
+        this.resumeMaxMessages = resumeMaxMessages;
+        this.objectMapper = newObjectMapper();
+    }
+
+    // 프레임 JSON 설정 (Instant 는 ISO 문자열). 벤치마크도 같은 설정을 쓰도록 여기 한 군데서 만든다
+    static ObjectMapper newObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         String userId = (String) session.getAttributes().get("userId");
-        if (userId != null) sessions.put(Long.valueOf(userId), session);
+        if (userId == null) return;
+        Long uid = Long.valueOf(userId);
+        OutboundSession out = outboundFactory.create(session, uid);
+        session.getAttributes().put(OUTBOUND_ATTR, out);
+        sessionRegistry.register(uid, out, userChatRepo.findChatIdsByUserId(uid));
+        presence.connected(uid);
+    }
+
+    /** 핸드셰이크 때 클라이언트가 요청한 것 중 여기 있는 것을 골라 응답한다 (앞쪽이 우선) */
+    @Override
+    public List<String> getSubProtocols() {
+        return SUB_PROTOCOLS;
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        SendMessageRequest req = objectMapper.readValue(message.getPayload(), SendMessageRequest.class);
-        Long senderId = Long.valueOf((String) session.getAttributes().get("userId"));
-        messageService.sendMessage(senderId, req);  // 저장 후 Kafka 발행 + 이벤트
+        OutboundSession out = (OutboundSession) session.getAttributes().get(OUTBOUND_ATTR);
+        handleInbound(out, InboundFrame.fromJson(objectMapper, message.getPayload()));
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        OutboundSession out = (OutboundSession) session.getAttributes().get(OUTBOUND_ATTR);
+        for (InboundFrame frame : BinaryFrameCodec.decodeInbound(message.getPayload())) {
+            handleInbound(out, frame);
+        }
+    }
+
+    // 웹소켓 스레드에서는 파싱/분배만 한다. DB/락/Kafka 를 타는 일은 방별 레인(InboundDispatcher)에서
+    private void handleInbound(OutboundSession out, InboundFrame frame) {
+        Long userId = out.userId();
+        if (frame instanceof InboundFrame.Send send) {
+            Long chatId = send.req().chatId();
+            // 프레임은 디코더가 record 를 바로 만들어서 @Valid 를 안 탄다 → REST 와 같은 제약을 여기서 검사
+            String invalid = violation(send.req());
+            if (invalid != null) {
+                String cid = send.req().clientMessageId();
+                reply(out, nack(chatId, cid != null && cid.length() <= 64 ? cid : null, "invalid: " + invalid));
+                return;
+            }
+            // 레인은 넣기만 하고 바로 다음 프레임으로 간다 (커밋을 기다리지 않음). 응답은 future 가 끝날 때.
+            // 방 안 순서: 레인이 방별로 들어온 순서대로 넣고, 그룹 커밋 대기열도 방을 writer 하나에 고정한다
+            boolean accepted = inbound.submit(chatId, () -> messageService.submitMessage(userId, send.req())
+                    .whenComplete((saved, error) -> {
+                        String cid = send.req().clientMessageId();
+                        if (error == null) {
+                            reply(out, ack(saved, cid));
+                            return;
+                        }
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        if (cause instanceof IllegalArgumentException) {
+                            reply(out, nack(chatId, cid, cause.getMessage()));
+                        } else {
+                            log.warn("메시지 전송 실패 userId={} chatId={}", userId, chatId, cause);
+                            reply(out, nack(chatId, cid, "error"));
+                        }
+                    }));
+            if (!accepted) reply(out, nack(chatId, send.req().clientMessageId(), "overloaded"));
+            presence.stopTyping(userId, chatId);
+        } else if (frame instanceof InboundFrame.Read read) {
+            // 클라이언트가 마음대로 보낼 수 있는 프레임 → 멤버 아닌 방/빈 값은 레인에 넣기 전에 조용히 버린다
+            Long chatId = read.chatId();
+            if (chatId == null || read.lastReadMessageId() == null || !sessionRegistry.roomsOf(userId).contains(chatId)) {
+                log.debug("읽음 프레임 무시 userId={} chatId={}", userId, chatId);
+                return;
+            }
+            // 거절돼도 괜찮다: 다음 읽음 처리가 더 큰 값으로 덮는다
+            inbound.submit(chatId, () -> {
+                try {
+                    readService.readUpTo(userId, chatId, new ReadUpToRequest(read.lastReadMessageId()));
+                } catch (IllegalArgumentException e) {
+                    log.debug("읽음 처리 거절 userId={} chatId={}: {}", userId, chatId, e.getMessage()); // 그 사이 퇴장 등
+                }
+            });
+        } else if (frame instanceof InboundFrame.Typing typing) {
+            // 메모리만 → 바로 처리. 멤버가 아닌 방이면 조용히 버린다 (세션을 끊지 않는다)
+            if (typing.chatId() == null) return;
+            if (typing.typing()) presence.typing(userId, typing.chatId());
+            else presence.stopTyping(userId, typing.chatId());
+        } else if (frame instanceof InboundFrame.Resume resume) {
+            resume.lastSeen().forEach((chatId, lastSeenId) -> {
+                if (!sessionRegistry.roomsOf(userId).contains(chatId)) return;
+                inbound.submit(chatId, () -> replay(out, chatId, lastSeenId));
+            });
+        }
+    }
+
+    /**
+     * 재접속 따라잡기: 놓친 메시지를 이 세션에만 다시 보내고 {"type":"resumed"} 로 끝을 알린다.
+     * - 접속하자마자 방 인덱스에 등록되므로, 그 뒤 커밋된 메시지는 실시간 경로로 온다. 겹치는 건 id 로 걸러야 한다.
+     * - hasMore 면 resume-max-messages 를 넘게 밀린 것 → 클라이언트가 next 커서로 히스토리 API 를 이어서 부른다.
+     */
+    private void replay(OutboundSession out, Long chatId, long lastSeenId) {
+        try {
+            MessageSlice missed = messageService.missedAfter(out.userId(), chatId, lastSeenId, resumeMaxMessages);
+            for (MessageResponse dto : missed.items()) {
+                out.enqueue(out.isBinary()
+                        ? OutboundFrame.of(BinaryFrameCodec.encodeMessage(dto), chatId)
+                        : OutboundFrame.of(new TextMessage(objectMapper.writeValueAsString(dto)), chatId));
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("type", "resumed");
+            body.put("chatId", chatId);
+            body.put("count", missed.items().size());
+            body.put("hasMore", missed.hasMore());
+            body.put("next", missed.nextCursor());
+            reply(out, body);
+        } catch (Exception e) {
+            log.warn("재접속 따라잡기 실패 userId={} chatId={}", out.userId(), chatId, e);
+        }
+    }
+
+    // 첫 번째 제약 위반 "필드 메시지", 없으면 null
+    private String violation(SendMessageRequest req) {
+        for (ConstraintViolation<SendMessageRequest> v : validator.validate(req)) {
+            return v.getPropertyPath() + " " + v.getMessage();
+        }
+        return null;
+    }
+
+    private static Map<String, Object> ack(MessageResponse saved, String clientMessageId) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", "ack");
+        body.put("chatId", saved.chatId());
+        body.put("clientMessageId", clientMessageId);
+        body.put("messageId", saved.id());
+        body.put("seq", saved.seq());
+        return body;
+    }
+
+    private static Map<String, Object> nack(Long chatId, String clientMessageId, String reason) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", "nack");
+        body.put("chatId", chatId);
+        body.put("clientMessageId", clientMessageId);
+        body.put("reason", reason);
+        return body;
+    }
+
+    // 보낸 세션에만 응답 (제어 프레임이라 바이너리 세션에도 JSON 텍스트)
+    private void reply(OutboundSession out, Map<String, Object> body) {
+        try {
+            out.enqueue(OutboundFrame.of(new TextMessage(objectMapper.writeValueAsString(body)), (Long) body.get("chatId")));
+        } catch (Exception e) {
+            log.warn("응답 프레임 전송 실패", e);
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        String userId = (String) session.getAttributes().get("userId");
-        if (userId != null) sessions.remove(Long.valueOf(userId));
+        OutboundSession out = (OutboundSession) session.getAttributes().get(OUTBOUND_ATTR);
+        if (out == null) return;
+        Set<Long> rooms = Set.copyOf(sessionRegistry.roomsOf(out.userId())); // 빼기 전에 받아 둔다
+        sessionRegistry.unregister(out.userId(), out);
+        out.discard();
+        presence.disconnected(out.userId(), rooms);
     }
 
+    /** 이 노드에서 저장된 메시지 전달 (커밋 직후) */
     public void broadcastMessage(MessageResponse dto) {
+        broadcastMessage(dto, DeliveryPath.LOCAL);
+    }
+
+    /**
+     * 이 노드에 붙은 방 멤버 세션에만 전달한다. 다른 노드 세션은 각 노드가 Kafka 로 받아 처리한다.
+     * 걸린 시간 / 세션 수 / 큐가 거절한 세션 수는 SendPipelineMetrics 로 남긴다.
+     */
+    public void broadcastMessage(MessageResponse dto, DeliveryPath path) {
+        long origin = dto.createdAt() == null ? 0L : dto.createdAt().toEpochMilli();
+        long started = System.nanoTime();
+        int sessions = 0;
+        int rejected = 0;
         try {
-            String json = objectMapper.writeValueAsString(dto);
-            TextMessage tm = new TextMessage(json);
-            for (WebSocketSession ws : sessions.values()) ws.sendMessage(tm);
+            // 직렬화는 프로토콜별로 한 번만(필요할 때만) 하고, 같은 프레임을 모든 세션 큐에 넣는다
+            // (enqueue 는 블록하지 않음)
+            OutboundFrame json = null;
+            OutboundFrame binary = null;
+            for (OutboundSession out : sessionRegistry.sessionsOf(dto.chatId())) {
+                if (out.isBinary()) {
+                    if (binary == null) binary = OutboundFrame.ofMessage(BinaryFrameCodec.encodeMessage(dto), dto.chatId(), origin, path);
+                    if (!out.enqueue(binary)) rejected++;
+                } else {
+                    if (json == null) json = OutboundFrame.ofMessage(
+                            new TextMessage(objectMapper.writeValueAsString(dto)), dto.chatId(), origin, path);
+                    if (!out.enqueue(json)) rejected++;
+                }
+                sessions++;
+            }
         } catch (Exception e) {
+            pipelineMetrics.broadcastSerializeFailed();
             log.error("브로드캐스트 실패", e);
         }
+        pipelineMetrics.recordBroadcast(started, path == DeliveryPath.KAFKA, sessions, rejected);
     }
 }
 
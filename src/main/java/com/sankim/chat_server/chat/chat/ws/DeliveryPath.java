@@ -0,0 +1,9 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+/** 메시지가 어떤 경로로 이 노드의 세션까지 왔는지 (전달 지연 메트릭 태그) */
+public enum DeliveryPath {
+    /** 이 노드에서 저장한 메시지: 커밋 직후 MessageBroadcastListener 가 바로 전달 */
+    LOCAL,
+    /** 다른 노드에서 저장한 메시지: Kafka chat-messages 토픽을 통해 전달 */
+    KAFKA
+}
@@ -0,0 +1,120 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 웹소켓 수신 프레임 실행기: chatId 별 순서 보장 + 방끼리는 병렬.
+ *
+ * 왜?
+ * - 예전에는 handleTextMessage 가 컨테이너의 웹소켓 스레드에서 sendMessage 를 바로 불렀다.
+ *   락 대기(최대 5초) + DB + Kafka I/O 동안 그 스레드가 맡은 다른 연결들이 전부 멈췄다.
+ *
+ * 구조
+ * - lanes 개의 레인. 레인마다 작업 스레드 1개 + 고정 크기 큐. chatId → 레인은 해시로 고정.
+ *   → 같은 방 작업은 들어온 순서대로 1개씩, 다른 레인의 방은 동시에 처리된다.
+ * - 큐가 가득 차면 기다리지 않고 거절한다 (submit 이 false). 호출자가 nack 을 보낸다.
+ * - virtual-threads=true 이고 런타임이 지원하면(Java 21+) 레인 작업 스레드를 가상 스레드로 만든다.
+ *   빌드는 Java 17 이라 리플렉션으로 찾고, 없으면 플랫폼 스레드로 돌아간다.
+ */
+@Slf4j
+@Component
+public class InboundDispatcher {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Counter rejected;
+    private final Timer queueWait;
+
+    public InboundDispatcher(MeterRegistry meterRegistry,
+                             @Value("${chat.ws.inbound.lanes:16}") int laneCount,
+                             @Value("${chat.ws.inbound.queue-capacity:1000}") int queueCapacity,
+                             @Value("${chat.ws.inbound.virtual-threads:false}") boolean virtualThreads) {
+        ThreadFactory factory = virtualThreads ? virtualThreadFactory() : null;
+        if (factory == null) {
+            AtomicInteger seq = new AtomicInteger();
+            factory = r -> {
+                Thread t = new Thread(r, "ws-inbound-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        this.rejected = meterRegistry.counter("chat.ws.inbound.rejected");
+        this.queueWait = Timer.builder("chat.ws.inbound.queue.wait")
+                .description("수신 프레임이 레인 큐에서 기다린 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.inbound.queued", this, d -> d.queued())
+                .description("모든 레인 큐에 쌓인 수신 프레임 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * chatId 레인에 작업을 넣는다. 절대 블록하지 않는다.
+     * @return 큐가 가득 차서 거절됐으면 false
+     */
+    public boolean submit(Long chatId, Runnable task) {
+        long enqueued = System.nanoTime();
+        try {
+            lanes[lane(chatId)].execute(() -> {
+                queueWait.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("수신 프레임 처리 실패 chatId={}", chatId, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) lane.shutdown();
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(5, TimeUnit.SECONDS)) lane.shutdownNow();
+        }
+    }
+
+    private int lane(Long chatId) {
+        return chatId == null ? 0 : Math.floorMod(Long.hashCode(chatId), lanes.length);
+    }
+
+    private int queued() {
+        int n = 0;
+        for (ThreadPoolExecutor lane : lanes) n += lane.getQueue().size();
+        return n;
+    }
+
+    // Thread.ofVirtual().name("ws-inbound-v", 0).factory() (Java 21+). 없으면 null
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> type = Class.forName("java.lang.Thread$Builder");
+            builder = type.getMethod("name", String.class, long.class).invoke(builder, "ws-inbound-v", 0L);
+            ThreadFactory factory = (ThreadFactory) type.getMethod("factory").invoke(builder);
+            log.info("[ws-inbound] 가상 스레드 사용");
+            return factory;
+        } catch (ReflectiveOperationException e) {
+            log.info("[ws-inbound] 가상 스레드 미지원 런타임 → 플랫폼 스레드 사용");
+            return null;
+        }
+    }
+}
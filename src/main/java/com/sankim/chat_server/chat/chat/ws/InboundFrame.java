@@ -0,0 +1,65 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sankim.chat_server.chat.chat.api.dto.SendMessageRequest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 클라이언트 → 서버 웹소켓 프레임.
+ * - JSON: "type" 필드가 없으면 예전처럼 메시지 전송(SendMessageRequest), 있으면 제어 프레임
+ *     {"type":"read","chatId":1,"lastReadMessageId":123}
+ *     {"type":"typing","chatId":1,"typing":true}   (typing 생략 시 true)
+ *     {"type":"resume","chats":{"1":123,"2":456}}   (chatId → 마지막으로 본 메시지 id)
+ * - 바이너리: BinaryFrameCodec 의 프레임 타입으로 구분
+ */
+public sealed interface InboundFrame {
+
+    /** 메시지 전송 */
+    record Send(SendMessageRequest req) implements InboundFrame {
+    }
+
+    /** 여기까지 읽음 */
+    record Read(Long chatId, Long lastReadMessageId) implements InboundFrame {
+    }
+
+    /** 입력중 / 입력 멈춤 */
+    record Typing(Long chatId, boolean typing) implements InboundFrame {
+    }
+
+    /** 재접속: 방별 마지막으로 본 메시지 id 이후를 다시 보내 달라 */
+    record Resume(Map<Long, Long> lastSeen) implements InboundFrame {
+    }
+
+    /** @throws IllegalArgumentException 알 수 없는 type 이거나 필수 필드가 없는 경우 */
+    static InboundFrame fromJson(ObjectMapper objectMapper, String payload) throws IOException {
+        JsonNode node = objectMapper.readTree(payload);
+        JsonNode type = node.get("type");
+        if (type == null) return new Send(objectMapper.treeToValue(node, SendMessageRequest.class));
+        return switch (type.asText()) {
+            case "read" -> new Read(requiredLong(node, "chatId"), requiredLong(node, "lastReadMessageId"));
+            case "typing" -> new Typing(requiredLong(node, "chatId"), node.path("typing").asBoolean(true));
+            case "resume" -> new Resume(lastSeen(node.get("chats")));
+            default -> throw new IllegalArgumentException("지원하지 않는 프레임 타입: " + type.asText());
+        };
+    }
+
+    private static Map<Long, Long> lastSeen(JsonNode chats) {
+        if (chats == null || !chats.isObject()) throw new IllegalArgumentException("chats 필요");
+        Map<Long, Long> out = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> e : chats.properties()) {
+            if (!e.getValue().canConvertToLong()) throw new IllegalArgumentException("chats." + e.getKey() + " 는 메시지 id");
+            out.put(Long.valueOf(e.getKey()), e.getValue().asLong());
+        }
+        return out;
+    }
+
+    private static Long requiredLong(JsonNode node, String field) {
+        JsonNode v = node.get(field);
+        if (v == null || !v.canConvertToLong()) throw new IllegalArgumentException(field + " 필요");
+        return v.asLong();
+    }
+}
@@ -0,0 +1,29 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * 송신 큐에 들어가는 프레임 1건.
+ * - size        : 큐 바이트 한도 계산용 페이로드 크기
+ * - chatId      : 어느 방 프레임인지 (resync 힌트 만들 때 사용, 없으면 null)
+ * - coalesceKey : 같은 키의 프레임은 최신 것만 남긴다 (상태성 프레임용, 없으면 null)
+ * - originMillis: 메시지 전송(저장) 시각. 실제 write 시점과의 차이로 전달 지연을 잰다 (0 이면 측정 안 함)
+ * - path        : 전달 경로 (지연 메트릭 태그, originMillis 가 0 이면 null)
+ */
+public record OutboundFrame(WebSocketMessage<?> message, int size, Long chatId, String coalesceKey,
+                            long originMillis, DeliveryPath path) {
+
+    public OutboundFrame(WebSocketMessage<?> message, int size, Long chatId, String coalesceKey) {
+        this(message, size, chatId, coalesceKey, 0L, null);
+    }
+
+    public static OutboundFrame of(WebSocketMessage<?> message, Long chatId) {
+        return new OutboundFrame(message, message.getPayloadLength(), chatId, null);
+    }
+
+    /** 채팅 메시지 프레임: 전송 시각부터 write 까지의 지연을 측정한다 */
+    public static OutboundFrame ofMessage(WebSocketMessage<?> message, Long chatId,
+                                          long originMillis, DeliveryPath path) {
+        return new OutboundFrame(message, message.getPayloadLength(), chatId, null, originMillis, path);
+    }
+}
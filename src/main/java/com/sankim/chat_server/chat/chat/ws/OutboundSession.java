@@ -0,0 +1,253 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * 웹소켓 세션 1개 + 그 세션 전용 "제한된 송신 큐".
+ *
+ * 왜 필요?
+ * - 예전에는 커밋한 스레드가 세션마다 ws.sendMessage 를 동기로 호출했다.
+ *   느린 모바일 클라이언트 하나가 뒤에 있는 모든 세션 전송을 막고,
+ *   같은 세션에 여러 스레드가 동시에 보내면 예외가 났다.
+ * - 이제 enqueue 는 큐에 넣고 바로 리턴하고, 실제 전송은 송신 풀 스레드가 세션당 1개씩만 수행한다.
+ *
+ * 한도/정책
+ * - maxMessages / maxBytes 를 넘으면 OverflowPolicy 에 따라 처리한다.
+ * - coalesceKey 가 있는 프레임(상태성 프레임)은 정책과 상관없이 같은 키의 이전 프레임을 대체한다.
+ * - 한 번의 전송이 sendTimeLimitMs 를 넘게 걸리고 있으면 느린 소비자로 보고 세션을 닫는다.
+ *
+ * 동시성
+ * - 큐 조작은 this 모니터로 짧게 보호하고, 네트워크 I/O 는 락 밖에서 한다.
+ * - draining 플래그로 "세션당 전송 스레드 1개"를 보장한다.
+ */
+@Slf4j
+public class OutboundSession {
+
+    /** 닫힘 사유: 클라이언트는 재접속 후 다시 동기화해야 한다 */
+    public static final CloseStatus RESYNC = new CloseStatus(4008, "RESYNC");
+
+    private static final String RESYNC_KEY = "resync";
+
+    private final WebSocketSession session;
+    private final Long userId;
+    private final boolean binary;
+    private final Executor sender;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long sendTimeLimitMs;
+    private final OverflowPolicy policy;
+    private final OutboundSessionFactory.Stats stats;
+
+    private final ArrayDeque<OutboundFrame> queue = new ArrayDeque<>();
+    // 큐에 있는(아직 안 나간) resync 힌트가 담고 있는 방들. 다시 합칠 때 이전 힌트의 방을 잃지 않도록 누적한다
+    private final Set<Long> resyncChatIds = new TreeSet<>();
+    private long queuedBytes;
+    private boolean draining;
+    private boolean closed;
+    private volatile long sendStartedAt; // 0 이면 전송중 아님
+
+    OutboundSession(WebSocketSession session, Long userId, boolean binary, Executor sender,
+                    int maxMessages, long maxBytes, long sendTimeLimitMs,
+                    OverflowPolicy policy, OutboundSessionFactory.Stats stats) {
+        this.session = session;
+        this.userId = userId;
+        this.binary = binary;
+        this.sender = sender;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.policy = policy;
+        this.stats = stats;
+    }
+
+    public WebSocketSession session() { return session; }
+
+    public Long userId() { return userId; }
+
+    public String id() { return session.getId(); }
+
+    /** 바이너리 서브프로토콜(chat.bin.v1)로 협상된 세션인지 */
+    public boolean isBinary() { return binary; }
+
+    /** 현재 큐에 쌓인 프레임 수 */
+    public synchronized int depth() { return queue.size(); }
+
+    /**
+     * 프레임을 큐에 넣는다. 절대 블록하지 않는다.
+     * @return 큐에 들어갔으면 true, 세션이 닫혔거나 정책상 버려졌으면 false
+     */
+    public boolean enqueue(OutboundFrame frame) {
+        if (isSlow()) {
+            stats.overflow(OverflowPolicy.CLOSE);
+            close(RESYNC);
+            return false;
+        }
+        boolean accepted;
+        boolean closeNow = false;
+        synchronized (this) {
+            if (closed) return false;
+            if (frame.coalesceKey() != null) removeSameKey(frame.coalesceKey());
+
+            if (queue.size() + 1 > maxMessages || queuedBytes + frame.size() > maxBytes) {
+                stats.overflow(policy);
+                switch (policy) {
+                    case DROP_OLDEST -> dropOldestFor(frame);
+                    case COALESCE -> coalesceBacklog(frame);
+                    case CLOSE -> closeNow = true;
+                }
+            }
+            accepted = !closeNow;
+            if (accepted) push(frame);
+            stats.recordDepth(queue.size());
+        }
+        if (closeNow) {
+            close(RESYNC);
+            return false;
+        }
+        scheduleDrain();
+        return accepted;
+    }
+
+    /** 세션 종료 시 호출: 큐를 비우고 이후 enqueue 를 거절한다 */
+    public void discard() {
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+            queuedBytes = 0;
+            resyncChatIds.clear();
+        }
+    }
+
+    private void close(CloseStatus status) {
+        discard();
+        try {
+            if (session.isOpen()) session.close(status);
+        } catch (Exception e) {
+            log.debug("세션 닫기 실패 sessionId={}", session.getId(), e);
+        }
+    }
+
+    private boolean isSlow() {
+        long started = sendStartedAt;
+        return started != 0 && System.currentTimeMillis() - started > sendTimeLimitMs;
+    }
+
+    // ---- 큐 조작 (this 모니터 안에서만 호출) ----
+
+    private void push(OutboundFrame frame) {
+        queue.addLast(frame);
+        queuedBytes += frame.size();
+    }
+
+    private OutboundFrame poll() {
+        OutboundFrame f = queue.pollFirst();
+        if (f == null) return null;
+        queuedBytes -= f.size();
+        if (RESYNC_KEY.equals(f.coalesceKey())) resyncChatIds.clear();
+        return f;
+    }
+
+    private void removeSameKey(String key) {
+        Iterator<OutboundFrame> it = queue.iterator();
+        while (it.hasNext()) {
+            OutboundFrame f = it.next();
+            if (key.equals(f.coalesceKey())) {
+                it.remove();
+                queuedBytes -= f.size();
+                stats.coalesced();
+            }
+        }
+    }
+
+    private void dropOldestFor(OutboundFrame incoming) {
+        while (!queue.isEmpty()
+                && (queue.size() + 1 > maxMessages || queuedBytes + incoming.size() > maxBytes)) {
+            poll();
+            stats.dropped(1);
+        }
+    }
+
+    // 밀린 프레임을 전부 버리고, 영향을 받은 방 목록만 담은 resync 힌트 1건으로 대체
+    // (아직 안 나간 이전 힌트가 있으면 그 방들도 새 힌트에 합친다)
+    private void coalesceBacklog(OutboundFrame incoming) {
+        int dropped = 0;
+        for (OutboundFrame f : queue) {
+            if (RESYNC_KEY.equals(f.coalesceKey())) continue;
+            if (f.chatId() != null) resyncChatIds.add(f.chatId());
+            dropped++;
+        }
+        if (incoming.chatId() != null) resyncChatIds.add(incoming.chatId());
+        stats.dropped(dropped);
+        queue.clear();
+        queuedBytes = 0;
+        push(resyncHint(resyncChatIds));
+    }
+
+    private static OutboundFrame resyncHint(Set<Long> chatIds) {
+        String json = chatIds.stream().map(String::valueOf)
+                .collect(Collectors.joining(",", "{\"type\":\"resync\",\"chatIds\":[", "]}"));
+        return new OutboundFrame(new TextMessage(json), json.length(), null, RESYNC_KEY);
+    }
+
+    // ---- 전송 ----
+
+    private void scheduleDrain() {
+        synchronized (this) {
+            if (draining || closed || queue.isEmpty()) return;
+            draining = true;
+        }
+        sender.execute(this::drain);
+    }
+
+    // 바이너리 프레임은 여러 세션이 같은 ByteBuffer 를 공유하므로,
+    // 전송하면서 position 이 움직이지 않도록 세션마다 duplicate(복사 없음) 해서 보낸다
+    private static WebSocketMessage<?> payloadOf(OutboundFrame f) {
+        if (f.message() instanceof BinaryMessage b) return new BinaryMessage(b.getPayload().duplicate(), b.isLast());
+        return f.message();
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                OutboundFrame f;
+                synchronized (this) {
+                    f = closed ? null : poll();
+                    if (f == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (!session.isOpen()) {
+                    discard();
+                    continue;
+                }
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    session.sendMessage(payloadOf(f));
+                    stats.sent(f);
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("세션 전송 실패 sessionId={}", session.getId(), e);
+            stats.failed();
+            synchronized (this) {
+                draining = false;
+            }
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+}
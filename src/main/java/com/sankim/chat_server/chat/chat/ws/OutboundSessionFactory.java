@@ -0,0 +1,133 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OutboundSession 을 만들어 주는 곳.
+ * - 큐 한도/정책 설정값(application.yml 의 chat.ws.outbound.*)과 송신 스레드 풀을 한 군데서 관리한다.
+ * - 큐 상태를 actuator/Prometheus 로 내보낸다.
+ *   세션 id 를 태그로 달면 카디널리티가 폭발하므로, 세션별 큐 깊이는 분포(histogram)로 기록하고
+ *   전체 합계/최대값은 게이지로 노출한다.
+ */
+@Component
+public class OutboundSessionFactory {
+
+    private final RoomSessionRegistry sessionRegistry;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long sendTimeLimitMs;
+    private final OverflowPolicy policy;
+    private final ExecutorService sender;
+    private final Stats stats;
+
+    public OutboundSessionFactory(RoomSessionRegistry sessionRegistry,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${chat.ws.outbound.max-messages:1000}") int maxMessages,
+                                  @Value("${chat.ws.outbound.max-bytes:1048576}") long maxBytes,
+                                  @Value("${chat.ws.outbound.send-time-limit-ms:10000}") long sendTimeLimitMs,
+                                  @Value("${chat.ws.outbound.overflow-policy:DROP_OLDEST}") OverflowPolicy policy,
+                                  @Value("${chat.ws.outbound.sender-threads:8}") int senderThreads) {
+        this.sessionRegistry = sessionRegistry;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.policy = policy;
+        AtomicInteger seq = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "ws-sender-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.stats = new Stats(meterRegistry);
+
+        Gauge.builder("chat.ws.outbound.queued", this, f -> f.totalDepth())
+                .description("모든 세션 송신 큐에 쌓인 프레임 수 합계")
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.queued.max", this, f -> f.maxDepth())
+                .description("가장 많이 밀린 세션의 큐 깊이")
+                .register(meterRegistry);
+    }
+
+    public OutboundSession create(WebSocketSession session, Long userId) {
+        boolean binary = BinaryFrameCodec.PROTOCOL.equals(session.getAcceptedProtocol());
+        return new OutboundSession(session, userId, binary, sender, maxMessages, maxBytes, sendTimeLimitMs, policy, stats);
+    }
+
+    private double totalDepth() {
+        long[] sum = {0};
+        sessionRegistry.forEachSession(s -> sum[0] += s.depth());
+        return sum[0];
+    }
+
+    private double maxDepth() {
+        int[] max = {0};
+        sessionRegistry.forEachSession(s -> max[0] = Math.max(max[0], s.depth()));
+        return max[0];
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdown();
+    }
+
+    /** 세션들이 공유하는 송신 메트릭 묶음 */
+    static final class Stats {
+        private final DistributionSummary depth;
+        private final Counter sent;
+        private final Counter failed;
+        private final Counter dropped;
+        private final Counter coalesced;
+        private final Map<OverflowPolicy, Counter> overflows = new EnumMap<>(OverflowPolicy.class);
+        private final Map<DeliveryPath, Timer> deliveryLatency = new EnumMap<>(DeliveryPath.class);
+
+        Stats(MeterRegistry registry) {
+            this.depth = DistributionSummary.builder("chat.ws.outbound.depth")
+                    .description("enqueue 시점의 세션별 송신 큐 깊이")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.sent = registry.counter("chat.ws.outbound.sent");
+            this.failed = registry.counter("chat.ws.outbound.failed");
+            this.dropped = registry.counter("chat.ws.outbound.dropped");
+            this.coalesced = registry.counter("chat.ws.outbound.coalesced");
+            for (OverflowPolicy p : OverflowPolicy.values()) {
+                overflows.put(p, registry.counter("chat.ws.outbound.overflow", "policy", p.name()));
+            }
+            // 전송 시각(createdAt) → 웹소켓 write 완료까지. KAFKA 경로는 노드 간 시계 차이가 섞인다.
+            for (DeliveryPath p : DeliveryPath.values()) {
+                deliveryLatency.put(p, Timer.builder("chat.delivery.latency")
+                        .description("메시지 전송 시각부터 웹소켓 write 완료까지의 지연")
+                        .tag("path", p.name())
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+        }
+
+        void recordDepth(int d) { depth.record(d); }
+        void sent(OutboundFrame f) {
+            sent.increment();
+            if (f.originMillis() > 0 && f.path() != null) {
+                long latency = Math.max(0, System.currentTimeMillis() - f.originMillis());
+                deliveryLatency.get(f.path()).record(latency, TimeUnit.MILLISECONDS);
+            }
+        }
+        void failed() { failed.increment(); }
+        void dropped(int n) { if (n > 0) dropped.increment(n); }
+        void coalesced() { coalesced.increment(); }
+        void overflow(OverflowPolicy p) { overflows.get(p).increment(); }
+    }
+}
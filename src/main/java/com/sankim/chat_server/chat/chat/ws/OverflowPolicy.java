@@ -0,0 +1,13 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+/**
+ * 세션별 송신 큐가 한도(메시지 수/바이트)를 넘었을 때의 처리 방식.
+ */
+public enum OverflowPolicy {
+    /** 가장 오래된 프레임부터 버린다. 세션은 유지, 클라이언트는 일부 메시지를 놓칠 수 있다. */
+    DROP_OLDEST,
+    /** 쌓인 프레임을 전부 버리고 "이 방들 다시 불러와" 라는 resync 힌트 1건으로 합친다. */
+    COALESCE,
+    /** 세션을 닫는다. 닫힘 사유에 RESYNC 를 실어 재접속 후 다시 동기화하게 한다. */
+    CLOSE
+}
@@ -0,0 +1,156 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sankim.chat_server.chat.chat.support.NodeIdentity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 읽음 표시(receipts) 실시간 푸시.
+ *
+ * 왜?
+ * - 읽음 위치는 스크롤할 때마다 올라간다. 이벤트마다 방 멤버 전원에게 보내면 트래픽이 "스크롤 수 × 방 인원" 이 된다.
+ * - 방마다 짧은 창(window-ms) 동안 들어온 읽음 위치를 모아서 (reader 별 최신 값만) 프레임 1개로 보낸다.
+ *     {"type":"receipts","chatId":1,"readers":{"5":1234,"7":1230}}
+ * - 노드별 방 단위 속도 제한: 한 노드는 한 방에 node-min-interval-ms 에 최대 1번만 보낸다.
+ *   그 사이 들어온 값은 계속 모였다가 다음 번에 나간다.
+ *   제한은 노드마다 따로 건다 (노드 간 조율 없음). 같은 방 멤버들이 여러 노드에서 읽으면
+ *   그 방 세션이 받는 receipts 프레임은 최대 "읽음을 받은 노드 수 / 간격" 이다.
+ *
+ * 노드 간
+ * - 읽음 처리를 받은 노드가 모으고/속도 제한을 건 뒤, 자기 세션에 보내고 Redis 채널로 1번 발행한다.
+ *   다른 노드는 받은 묶음을 자기 세션에만 그대로 전달한다. (자기가 발행한 것은 무시)
+ * - pub/sub 유실 시 그 묶음의 읽음 표시만 늦어진다. 다음 조회 때 seenCount(ReadCursorIndex)로 맞춰진다.
+ *
+ * 제어 프레임이라 바이너리 세션에도 JSON 텍스트로 보낸다.
+ * coalesceKey 는 쓰지 않는다: 묶음마다 reader 집합이 달라서, 앞 프레임을 대체하면 그 안의 reader 가 빠진다.
+ */
+@Slf4j
+@Component
+public class ReadReceiptBroadcaster implements MessageListener {
+
+    public static final String CHANNEL = "chat:read:receipts";
+
+    /** 노드 간에 오가는 묶음 */
+    record Batch(String node, long chatId, Map<Long, Long> readers) {
+    }
+
+    private final RoomSessionRegistry sessionRegistry;
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final long minIntervalMs; // 노드별
+
+    // chatId → (userId → 최신 읽음 위치). 창이 닫힐 때 방 단위로 통째로 꺼낸다
+    private final Map<Long, Map<Long, Long>> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lastSentAt = new ConcurrentHashMap<>(); // 이 노드가 방에 마지막으로 보낸 시각
+
+    private final Counter offered;
+    private final Counter frames;
+    private final DistributionSummary readersPerBatch;
+
+    public ReadReceiptBroadcaster(RoomSessionRegistry sessionRegistry,
+                                  StringRedisTemplate redis,
+                                  RedisMessageListenerContainer container,
+                                  ObjectMapper objectMapper,
+                                  NodeIdentity nodeIdentity,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${chat.ws.receipts.node-min-interval-ms:${chat.ws.receipts.min-interval-ms:1000}}") long minIntervalMs) {
+        this.sessionRegistry = sessionRegistry;
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeIdentity.nodeId();
+        this.minIntervalMs = minIntervalMs;
+
+        this.offered = meterRegistry.counter("chat.ws.receipts.offered");
+        this.frames = meterRegistry.counter("chat.ws.receipts.frames");
+        this.readersPerBatch = DistributionSummary.builder("chat.ws.receipts.readers")
+                .description("receipts 묶음 1개에 담긴 reader 수")
+                .register(meterRegistry);
+
+        container.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /** 읽음 위치가 올랐다 (이 노드에서 받은 읽음 처리). 바로 보내지 않고 창에 모은다 */
+    public void offer(Long chatId, Long userId, long cursor) {
+        offered.increment();
+        pending.compute(chatId, (k, readers) -> {
+            if (readers == null) readers = new HashMap<>();
+            readers.merge(userId, cursor, Math::max);
+            return readers;
+        });
+    }
+
+    /** 창 닫기: 속도 제한을 통과한 방만 꺼내서 보낸다 */
+    @Scheduled(fixedDelayString = "${chat.ws.receipts.window-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Long chatId : pending.keySet()) {
+            Long last = lastSentAt.get(chatId);
+            if (last != null && now - last < minIntervalMs) continue; // 이 방은 아직 보낼 차례가 아님 → 계속 모은다
+            Map<Long, Long> readers = pending.remove(chatId);
+            if (readers == null || readers.isEmpty()) continue;
+            lastSentAt.put(chatId, now);
+            readersPerBatch.record(readers.size());
+
+            deliverLocal(chatId, readers);
+            publish(new Batch(nodeId, chatId, readers));
+        }
+        // 속도 제한 창이 지난 기록은 버린다 (조용한 방이 쌓이지 않게)
+        lastSentAt.values().removeIf(t -> now - t >= minIntervalMs);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Batch batch = objectMapper.readValue(message.getBody(), Batch.class);
+            if (nodeId.equals(batch.node())) return; // 자기 세션에는 이미 보냄
+            deliverLocal(batch.chatId(), batch.readers());
+        } catch (Exception e) {
+            log.warn("receipts 수신 처리 실패", e);
+        }
+    }
+
+    private void publish(Batch batch) {
+        try {
+            redis.convertAndSend(CHANNEL, objectMapper.writeValueAsString(batch));
+        } catch (Exception e) {
+            // 다른 노드 세션은 다음 조회 때 seenCount 로 맞춰진다
+            log.warn("receipts 발행 실패 chatId={}", batch.chatId(), e);
+        }
+    }
+
+    // 이 노드에 붙은 방 멤버 세션에 같은 프레임 1개를 넣는다 (직렬화 1번)
+    private void deliverLocal(long chatId, Map<Long, Long> readers) {
+        Set<OutboundSession> sessions = sessionRegistry.sessionsOf(chatId);
+        if (sessions.isEmpty()) return;
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("type", "receipts");
+            body.put("chatId", chatId);
+            body.put("readers", readers);
+            OutboundFrame frame = OutboundFrame.of(new TextMessage(objectMapper.writeValueAsString(body)), chatId);
+            for (OutboundSession out : sessions) out.enqueue(frame);
+            frames.increment();
+        } catch (Exception e) {
+            log.error("receipts 전달 실패 chatId={}", chatId, e);
+        }
+    }
+}
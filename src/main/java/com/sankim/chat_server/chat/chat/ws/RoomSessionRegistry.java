@@ -0,0 +1,152 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 이 노드에 붙어있는 웹소켓 세션을 "채팅방 단위"로 찾기 위한 인덱스.
+ *
+ * 왜 필요?
+ * - 전체 세션을 돌면서 보내면 메시지 1건당 비용이 O(전체 접속 수)가 된다.
+ *   chatId → 세션 집합을 들고 있으면 비용이 O(방 인원 세션 수)로 줄어든다.
+ * - userId 하나에 세션 여러 개(탭/기기)를 허용한다. 예전 Map<Long, OutboundSession> 은
+ *   두 번째 탭이 첫 번째 세션을 덮어써 버렸다.
+ *
+ * 구조
+ * - userSessions : userId → 그 유저의 세션들
+ * - userRooms    : userId → 그 유저가 참여중인 chatId (세션이 하나라도 있을 때만 유지)
+ * - roomSessions : chatId → 그 방 멤버들의 세션들 (실제 팬아웃에 사용)
+ *
+ * 동시성
+ * - 같은 유저에 대한 등록/해제/입장/퇴장은 userSessions.compute(...) 안에서 처리해 유저 단위로 직렬화한다.
+ * - 브로드캐스트 쪽은 락 없이 roomSessions 의 동시성 Set 을 그대로 순회한다.
+ * - 세션은 송신 큐가 붙은 OutboundSession 으로 들고 있는다. (전송은 큐를 통해서만)
+ *
+ * 메트릭: chat.ws.sessions (이 노드의 세션 수), chat.ws.rooms (세션이 하나라도 붙은 방 수)
+ */
+@Component
+public class RoomSessionRegistry {
+
+    private final Map<Long, Set<OutboundSession>> userSessions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> userRooms = new ConcurrentHashMap<>();
+    private final Map<Long, Set<OutboundSession>> roomSessions = new ConcurrentHashMap<>();
+
+    public RoomSessionRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("chat.ws.sessions", this, RoomSessionRegistry::sessionCount)
+                .description("이 노드에 붙어 있는 웹소켓 세션 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.rooms", this, RoomSessionRegistry::roomCount)
+                .description("이 노드에 세션이 하나라도 붙어 있는 방 수")
+                .register(meterRegistry);
+    }
+
+    /** 세션 접속: 유저의 참여 방 목록(chatIds)으로 방 인덱스에 세션을 추가 */
+    public void register(Long userId, OutboundSession session, Collection<Long> chatIds) {
+        userSessions.compute(userId, (uid, sessions) -> {
+            if (sessions == null) sessions = ConcurrentHashMap.newKeySet();
+            sessions.add(session);
+
+            // 첫 세션이면 방 목록을 새로 기록, 아니면 기존 목록을 그대로 사용(중간 입장/퇴장 반영본)
+            Set<Long> rooms = userRooms.computeIfAbsent(uid, k -> {
+                Set<Long> s = ConcurrentHashMap.newKeySet();
+                s.addAll(chatIds);
+                return s;
+            });
+            for (Long chatId : rooms) addToRoom(chatId, Set.of(session));
+            return sessions;
+        });
+    }
+
+    /** 세션 종료: 그 세션만 방 인덱스에서 빼고, 마지막 세션이면 유저 정보도 정리 */
+    public void unregister(Long userId, OutboundSession session) {
+        userSessions.computeIfPresent(userId, (uid, sessions) -> {
+            sessions.remove(session);
+            Set<Long> rooms = userRooms.getOrDefault(uid, Collections.emptySet());
+            for (Long chatId : rooms) removeFromRoom(chatId, session);
+            if (sessions.isEmpty()) {
+                userRooms.remove(uid);
+                return null; // 엔트리 제거
+            }
+            return sessions;
+        });
+    }
+
+    /** 방 입장: 이 노드에 접속중인 유저라면 그 유저의 모든 세션을 방 인덱스에 추가 */
+    public void join(Long userId, Long chatId) {
+        userSessions.computeIfPresent(userId, (uid, sessions) -> {
+            Set<Long> rooms = userRooms.get(uid);
+            if (rooms != null && rooms.add(chatId)) {
+                addToRoom(chatId, sessions);
+            }
+            return sessions;
+        });
+    }
+
+    /** 방 퇴장: 이 노드에 접속중인 유저라면 그 유저의 모든 세션을 방 인덱스에서 제거 */
+    public void leave(Long userId, Long chatId) {
+        userSessions.computeIfPresent(userId, (uid, sessions) -> {
+            Set<Long> rooms = userRooms.get(uid);
+            if (rooms != null && rooms.remove(chatId)) {
+                for (OutboundSession s : sessions) removeFromRoom(chatId, s);
+            }
+            return sessions;
+        });
+    }
+
+    /** 팬아웃 대상: 이 방 멤버들의 세션 (없으면 빈 집합) */
+    public Set<OutboundSession> sessionsOf(Long chatId) {
+        Set<OutboundSession> s = roomSessions.get(chatId);
+        return s != null ? s : Collections.emptySet();
+    }
+
+    /** 특정 유저의 세션들 (없으면 빈 집합) */
+    public Set<OutboundSession> sessionsOfUser(Long userId) {
+        Set<OutboundSession> s = userSessions.get(userId);
+        return s != null ? s : Collections.emptySet();
+    }
+
+    /** 이 노드에 접속중인 유저의 참여 방들 (접속중이 아니면 빈 집합) */
+    public Set<Long> roomsOf(Long userId) {
+        Set<Long> s = userRooms.get(userId);
+        return s != null ? s : Collections.emptySet();
+    }
+
+    /** 이 노드의 모든 세션 순회 (메트릭 집계용) */
+    public void forEachSession(Consumer<OutboundSession> action) {
+        for (Set<OutboundSession> sessions : userSessions.values()) sessions.forEach(action);
+    }
+
+    public int sessionCount() {
+        int n = 0;
+        for (Set<OutboundSession> s : userSessions.values()) n += s.size();
+        return n;
+    }
+
+    public int roomCount() {
+        return roomSessions.size();
+    }
+
+    // 추가/제거 모두 roomSessions.compute 안에서 해야 "빈 방 정리"와 경합해도 세션이 유실되지 않는다
+    private void addToRoom(Long chatId, Collection<OutboundSession> sessions) {
+        roomSessions.compute(chatId, (cid, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.addAll(sessions);
+            return set;
+        });
+    }
+
+    // 방에 세션이 하나도 안 남으면 엔트리를 지워서 빈 방이 쌓이지 않게 한다
+    private void removeFromRoom(Long chatId, OutboundSession session) {
+        roomSessions.computeIfPresent(chatId, (cid, set) -> {
+            set.remove(session);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
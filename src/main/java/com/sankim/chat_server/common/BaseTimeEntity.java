@@ -9,6 +9,7 @@ import lombok.Getter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 /**
  * 모든 엔티티가 공통으로 물려받는 "생성/수정 시간" 베이스 클래스.
@@ -26,6 +27,8 @@ import java.time.Instant;
  *
  * 시간 타입
  * - Instant = UTC 기준의 절대시간. 운영에서 타임존 이슈가 줄어 안정적입니다.
+ * - DB 컬럼(DATETIME(6))은 마이크로초까지만 저장하므로, 메모리 값도 마이크로초로 잘라 둡니다.
+ *   (저장 직후 만든 DTO 와 나중에 DB 에서 읽은 값이 같아야 정렬/중복 판정이 어긋나지 않음)
  */
 @Getter
 @MappedSuperclass
@@ -42,7 +45,7 @@ public abstract class BaseTimeEntity {
     /** INSERT 직전에 한 번만 호출 → 생성·수정 시간을 동일하게 now 로 채움 */
     @PrePersist
     protected void onCreate() {
-        Instant now = Instant.now();
+        Instant now = now();
         this.createAt = now;
         this.updateAt = now;
     }
@@ -50,7 +53,11 @@ public abstract class BaseTimeEntity {
     /** UPDATE 직전에 호출 → 수정 시간만 갱신 */
     @PreUpdate
     protected void onUpdate() {
-        this.updateAt = Instant.now();
+        this.updateAt = now();
+    }
+
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
     }
 }
 
@@ -0,0 +1,99 @@
+package com.sankim.chat_server.chat.chat.member;
+
+import com.sankim.chat_server.chat.chat.repository.UserChatRepository;
+import com.sankim.chat_server.chat.chat.support.CacheInvalidationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatMemberCacheTest {
+
+	private final UserChatRepository repo = mock(UserChatRepository.class);
+	private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void answersFromCacheAfterFirstLoad() {
+		when(repo.findMembersByChatIds(anyCollection())).thenAnswer(inv -> rows(inv.getArgument(0), 3L, 1L));
+		ChatMemberCache cache = cache(100, 1_000);
+
+		assertThat(cache.members(1L)).containsExactly(1L, 3L);
+		assertThat(cache.isMember(1L, 3L)).isTrue();
+		assertThat(cache.isMember(1L, 2L)).isFalse();
+
+		verify(repo, times(1)).findMembersByChatIds(anyCollection());
+	}
+
+	@Test
+	void doesNotCacheWhenInvalidatedDuringLoad() {
+		ChatMemberCache cache = cache(100, 1_000);
+		Consumer<String> invalidate = subscribed();
+		when(repo.findMembersByChatIds(anyCollection())).thenAnswer(inv -> {
+			invalidate.accept("1"); // 읽는 사이 다른 노드에서 입장
+			return rows(inv.getArgument(0), 1L);
+		});
+
+		cache.members(1L);
+		cache.members(1L);
+
+		verify(repo, times(2)).findMembersByChatIds(anyCollection());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedChatsOverLimit() throws InterruptedException {
+		when(repo.findMembersByChatIds(anyCollection())).thenAnswer(inv -> rows(inv.getArgument(0), 1L));
+		ChatMemberCache cache = cache(10, 1_000);
+		for (long chatId = 1; chatId <= 10; chatId++) cache.members(chatId);
+		Thread.sleep(1_100); // 사용 시각은 1초 단위로만 갱신된다
+		cache.members(10L);
+
+		cache.members(11L); // 한도 초과 → 90%(9개)까지 정리
+
+		assertThat(registry.get("chat.cache.size").tag("cache", ChatMemberCache.NAME).gauge().value())
+				.isEqualTo(9);
+		int before = loads();
+		cache.members(10L);
+		cache.members(11L);
+		assertThat(loads()).isEqualTo(before);
+	}
+
+	private ChatMemberCache cache(int maxChats, long maxIds) {
+		return new ChatMemberCache(repo, bus, registry, maxChats, maxIds, 600);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Consumer<String> subscribed() {
+		ArgumentCaptor<Consumer<String>> captor = ArgumentCaptor.forClass(Consumer.class);
+		verify(bus).subscribe(eq(ChatMemberCache.NAME), captor.capture());
+		return captor.getValue();
+	}
+
+	private int loads() {
+		return (int) mockingDetails(repo).getInvocations().stream()
+				.filter(i -> i.getMethod().getName().equals("findMembersByChatIds"))
+				.count();
+	}
+
+	// 요청된 모든 방에 같은 멤버를 돌려준다
+	private static List<Object[]> rows(Collection<Long> chatIds, long... userIds) {
+		List<Object[]> rows = new ArrayList<>();
+		for (Long chatId : chatIds) {
+			for (long userId : userIds) rows.add(new Object[]{chatId, userId});
+		}
+		return rows;
+	}
+}
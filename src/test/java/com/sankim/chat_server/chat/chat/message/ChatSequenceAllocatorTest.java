@@ -0,0 +1,50 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatSequenceAllocatorTest {
+
+	private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+	private final MessageRepository messageRepo = mock(MessageRepository.class);
+	private final ChatSequenceAllocator allocator = new ChatSequenceAllocator(redis, messageRepo);
+
+	@Test
+	void recognisesSeqConstraintViolationInCauseChain() {
+		DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute batch",
+				new SQLIntegrityConstraintViolationException("Duplicate entry '7-42' for key 'message.UK_MSG_CHAT_SEQ'"));
+
+		assertThat(ChatSequenceAllocator.isSeqConflict(e)).isTrue();
+	}
+
+	@Test
+	void ignoresOtherConstraintViolations() {
+		DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute batch",
+				new SQLIntegrityConstraintViolationException("Cannot add or update a child row: fk_msg_sender"));
+
+		assertThat(ChatSequenceAllocator.isSeqConflict(e)).isFalse();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void resyncRaisesCounterToCommittedMaxSeq() {
+		when(messageRepo.findMaxSeqByChatId(7L)).thenReturn(42L);
+
+		allocator.resync(7L);
+
+		verify(redis).execute(any(RedisScript.class), eq(List.of("chat:seq:7")), eq("42"));
+	}
+}
@@ -0,0 +1,84 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageResponseCodecTest {
+
+	private static final String TOPIC = "chat-messages";
+
+	private final MessageResponseSerializer serializer = new MessageResponseSerializer();
+	private final MessageResponseDeserializer deserializer = new MessageResponseDeserializer();
+
+	@Test
+	void roundTripsAllFields() {
+		MessageResponse m = new MessageResponse(7_212_345_678_901_234L, 42L, 1001L, 9L, "TEXT",
+				"안녕! 첫 메시지 🙂", Instant.parse("2026-10-18T09:15:30.123456789Z"), 3L);
+
+		assertThat(roundTrip(m)).isEqualTo(m);
+	}
+
+	@Test
+	void roundTripsOptionalFieldsAndUnknownContentType() {
+		MessageResponse legacy = new MessageResponse(1L, 2L, null, 3L, null, "", null, 0L);
+		MessageResponse custom = new MessageResponse(1L, 2L, 5L, 3L, "application/x-sticker", "s1",
+				Instant.ofEpochSecond(-1, 500), 1L);
+
+		assertThat(roundTrip(legacy)).isEqualTo(legacy);
+		assertThat(roundTrip(custom)).isEqualTo(custom);
+	}
+
+	@Test
+	void readsLegacyJsonRecords() {
+		MessageResponse m = new MessageResponse(11L, 22L, 33L, 44L, "IMAGE", "img",
+				Instant.parse("2026-01-02T03:04:05Z"), 2L);
+		try (JsonSerializer<MessageResponse> json = new JsonSerializer<>()) {
+			byte[] legacy = json.serialize(TOPIC, m);
+
+			assertThat(deserializer.deserialize(TOPIC, legacy)).isEqualTo(m);
+		}
+	}
+
+	@Test
+	void binaryIsSmallerThanJson() {
+		MessageResponse m = new MessageResponse(7_212_345_678_901_234L, 42L, 1001L, 9L, "TEXT",
+				"hello", Instant.parse("2026-10-18T09:15:30Z"), 1L);
+		try (JsonSerializer<MessageResponse> json = new JsonSerializer<>()) {
+			assertThat(serializer.serialize(TOPIC, m).length).isLessThan(json.serialize(TOPIC, m).length / 3);
+		}
+	}
+
+	@Test
+	void rejectsUnknownVersion() {
+		byte[] data = serializer.serialize(TOPIC, new MessageResponse(1L, 2L, 3L, 4L, "TEXT", "x", null, 0L));
+		data[0] = (byte) (MessageResponseCodec.VERSION + 1);
+
+		assertThatThrownBy(() -> deserializer.deserialize(TOPIC, data)).isInstanceOf(SerializationException.class);
+	}
+
+	@Test
+	void rejectsTruncatedRecord() {
+		byte[] data = serializer.serialize(TOPIC, new MessageResponse(1L, 2L, 3L, 4L, "TEXT", "hello", null, 0L));
+		byte[] truncated = Arrays.copyOf(data, data.length - 3);
+
+		assertThatThrownBy(() -> deserializer.deserialize(TOPIC, truncated)).isInstanceOf(SerializationException.class);
+	}
+
+	@Test
+	void nullStaysNull() {
+		assertThat(serializer.serialize(TOPIC, null)).isNull();
+		assertThat(deserializer.deserialize(TOPIC, null)).isNull();
+	}
+
+	private MessageResponse roundTrip(MessageResponse m) {
+		return deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, m));
+	}
+}
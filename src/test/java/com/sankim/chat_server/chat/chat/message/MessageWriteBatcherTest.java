@@ -0,0 +1,63 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.api.dto.SendMessageRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageWriteBatcherTest {
+
+	@Test
+	void sameChatIsFlushedByOneWriterInSubmitOrder() throws Exception {
+		int chats = 8;
+		int perChat = 500;
+		Map<Long, List<Integer>> flushedOrder = new ConcurrentHashMap<>();
+		Map<Long, String> writerOf = new ConcurrentHashMap<>();
+		Map<Long, Boolean> sharedWriter = new ConcurrentHashMap<>();
+		MessageWriteBatcher batcher = new MessageWriteBatcher(batch -> {
+			String writer = Thread.currentThread().getName();
+			for (MessageWriteBatcher.PendingSend p : batch) {
+				Long chatId = p.req().chatId();
+				if (!writer.equals(writerOf.computeIfAbsent(chatId, k -> writer))) sharedWriter.put(chatId, true);
+				flushedOrder.computeIfAbsent(chatId, k -> new ArrayList<>()).add(Integer.parseInt(p.req().content()));
+				p.future().complete(new MessageResponse(1L, chatId, 1L, p.userId(), "TEXT", p.req().content(), null, 1L));
+			}
+		}, new SimpleMeterRegistry(), 100_000, 16, 1, 4);
+
+		List<CompletableFuture<MessageResponse>> futures = new ArrayList<>();
+		for (int i = 0; i < perChat; i++) {
+			for (long chatId = 1; chatId <= chats; chatId++) {
+				futures.add(batcher.submit(1L, new SendMessageRequest(chatId, String.valueOf(i), null)));
+			}
+		}
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+		batcher.shutdown();
+
+		assertThat(sharedWriter).isEmpty();
+		for (long chatId = 1; chatId <= chats; chatId++) {
+			assertThat(flushedOrder.get(chatId)).hasSize(perChat).isSorted();
+		}
+	}
+
+	@Test
+	void rejectsWhenChatsWriterQueueIsFull() {
+		CompletableFuture<Void> blocked = new CompletableFuture<>();
+		MessageWriteBatcher batcher = new MessageWriteBatcher(batch -> blocked.join(),
+				new SimpleMeterRegistry(), 2, 1, 1, 1);
+
+		List<CompletableFuture<MessageResponse>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) futures.add(batcher.submit(1L, new SendMessageRequest(1L, "m" + i, null)));
+
+		assertThat(futures).anyMatch(CompletableFuture::isCompletedExceptionally);
+		blocked.complete(null);
+	}
+}
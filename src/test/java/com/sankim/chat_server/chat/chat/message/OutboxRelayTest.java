@@ -0,0 +1,131 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sankim.chat_server.chat.chat.MessageOutbox;
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.repository.MessageOutboxRepository;
+import com.sankim.chat_server.chat.chat.support.SendPipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final MessageOutboxRepository outboxRepo = mock(MessageOutboxRepository.class);
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, MessageResponse> kafka = mock(KafkaTemplate.class);
+	private final RedissonClient redisson = mock(RedissonClient.class);
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	private final OutboxRelay relay = new OutboxRelay(outboxRepo, kafka, objectMapper, redisson, registry,
+			new SendPipelineMetrics(registry), 500, 20, 1000);
+
+	private final List<Long> sentIds = new ArrayList<>();
+	private final List<Long> deletedIds = new ArrayList<>();
+
+	@Test
+	void keepsLaterRowsOfChatAfterFailureButDeletesOtherChats() throws Exception {
+		// chat 1: 1 ok, 2 실패(나중에 알게 됨), 3 ok / chat 2: 4 ok
+		CompletableFuture<SendResult<String, MessageResponse>> late = new CompletableFuture<>();
+		stubBatch(row(1, 1L), row(2, 1L), row(3, 1L), row(4, 2L));
+		stubSends(Set.of(), late, 2L);
+
+		int relayed = relay.relayBatch();
+
+		assertThat(relayed).isZero();
+		assertThat(sentIds).containsExactly(1L, 2L, 3L, 4L);
+		assertThat(deletedIds).containsExactly(1L, 4L); // 3 은 ack 를 받았어도 2 뒤에 다시 나가야 한다
+		assertThat(registry.counter("chat.outbox.failed").count()).isEqualTo(1);
+	}
+
+	@Test
+	void doesNotSendLaterRowsOfChatThatAlreadyFailed() throws Exception {
+		stubBatch(row(1, 1L), row(2, 1L), row(3, 2L), row(4, 1L));
+		stubSends(Set.of(1L), null, -1L);
+
+		relay.relayBatch();
+
+		assertThat(sentIds).containsExactly(1L, 3L);
+		assertThat(deletedIds).containsExactly(3L);
+	}
+
+	@Test
+	void deletesWholeBatchWhenEverythingIsAcked() throws Exception {
+		stubBatch(row(1, 1L), row(2, 2L));
+		stubSends(Set.of(), null, -1L);
+
+		assertThat(relay.relayBatch()).isEqualTo(2);
+		assertThat(deletedIds).containsExactly(1L, 2L);
+	}
+
+	@Test
+	void lagIsZeroWhileAnotherNodeHoldsTheLock() throws Exception {
+		stubBatch(row(1, 1L));
+		stubSends(Set.of(1L), null, -1L);
+		relay.relayBatch(); // 이 노드가 리더였을 때 밀린 행을 봤다
+		assertThat(registry.get("chat.outbox.lag").gauge().value()).isPositive();
+
+		RLock lock = mock(RLock.class);
+		when(redisson.getLock("outboxRelayLock")).thenReturn(lock);
+		when(lock.tryLock()).thenReturn(false);
+		relay.relay();
+
+		assertThat(registry.get("chat.outbox.lag").gauge().value()).isZero();
+	}
+
+	private void stubBatch(MessageOutbox... rows) {
+		when(outboxRepo.findByOrderByIdAsc(any(Limit.class))).thenReturn(List.of(rows));
+		doAnswer(inv -> {
+			deletedIds.addAll(inv.<Collection<Long>>getArgument(0));
+			return null;
+		}).when(outboxRepo).deleteAllByIdInBatch(anyCollection());
+	}
+
+	// failNow: 바로 실패하는 id / late: lateId 의 future, 다음 행을 보낸 뒤에야 실패한다
+	@SuppressWarnings("unchecked")
+	private void stubSends(Set<Long> failNow, CompletableFuture<SendResult<String, MessageResponse>> late, long lateId) {
+		when(kafka.send(any(ProducerRecord.class))).thenAnswer(inv -> {
+			ProducerRecord<String, MessageResponse> record = inv.getArgument(0);
+			long id = record.value().id();
+			sentIds.add(id);
+			if (id == lateId) return late;
+			if (id == lateId + 1) late.completeExceptionally(new IllegalStateException("broker down"));
+			if (failNow.contains(id)) return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+			return CompletableFuture.completedFuture(mock(SendResult.class));
+		});
+	}
+
+	private MessageOutbox row(long id, Long chatId) throws Exception {
+		MessageResponse dto = new MessageResponse(id, chatId, id, 9L, "TEXT", "m" + id, Instant.parse("2026-10-18T09:00:00Z"), 1L);
+		MessageOutbox row = MessageOutbox.builder()
+				.id(id)
+				.chatId(chatId)
+				.payload(objectMapper.writeValueAsString(dto))
+				.build();
+		ReflectionTestUtils.setField(row, "createAt", Instant.now().minusSeconds(30));
+		return row;
+	}
+}
@@ -0,0 +1,184 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentMessageCacheTest {
+
+	private static final long CHAT = 42L;
+	private static final Instant BASE = Instant.parse("2026-10-18T09:00:00Z");
+
+	private final RecentMessageCache cache = new RecentMessageCache(new SimpleMeterRegistry(), 3, 100, 1 << 20, 300);
+
+	@Test
+	void wrapsAroundKeepingNewestInOrder() {
+		installNewest(3, 3); // 1,2,3
+		for (long id = 4; id <= 8; id++) cache.append(msg(id));
+
+		RecentMessageCache.Tail tail = cache.latest(CHAT, 3);
+		assertThat(ids(tail.items())).containsExactly(8L, 7L, 6L);
+		assertThat(tail.total()).isEqualTo(8);
+		assertThat(tail.hasMore()).isTrue();
+		assertThat(ids(cache.after(CHAT, 6, 10))).containsExactly(7L, 8L);
+		assertThat(cache.after(CHAT, 8, 10)).isEmpty();
+		// 링 밖으로 밀려난 지점은 DB 로
+		assertThat(cache.after(CHAT, 4, 10)).isNull();
+		// 링보다 큰 페이지는 줄 수 없다
+		assertThat(cache.latest(CHAT, 4)).isNull();
+	}
+
+	@Test
+	void insertsLateMessageInPlaceAfterWraparound() {
+		installNewest(3, 3);
+		cache.append(msg(5));
+		cache.append(msg(4)); // 커밋 이벤트 순서가 바뀌어 도착
+		cache.append(msg(5)); // 중복
+
+		RecentMessageCache.Tail tail = cache.latest(CHAT, 3);
+		assertThat(ids(tail.items())).containsExactly(5L, 4L, 3L);
+		assertThat(tail.total()).isEqualTo(5);
+	}
+
+	@Test
+	void ignoresSameMessageWithFinerTimestampThanDbRow() {
+		// DB 행은 마이크로초로 잘려 있고, 같은 마이크로초 안에 이웃 메시지가 있다
+		Instant nanos = Instant.parse("2026-10-18T09:00:00.123456789Z");
+		Instant micros = nanos.truncatedTo(ChronoUnit.MICROS);
+		List<MessageResponse> fromDb = List.of(at(6, micros), at(5, micros), at(4, micros));
+		cache.install(CHAT, cache.version(CHAT), fromDb, 3);
+
+		// Kafka 로 다시 온 5번: 나노초 createdAt 이라 6번 뒤로 정렬된다
+		cache.append(at(5, nanos));
+
+		RecentMessageCache.Tail tail = cache.latest(CHAT, 3);
+		assertThat(ids(tail.items())).containsExactly(6L, 5L, 4L);
+		assertThat(tail.total()).isEqualTo(3);
+		assertThat(tail.hasMore()).isFalse();
+		assertThat(ids(cache.after(CHAT, 4, 10))).containsExactly(5L, 6L);
+	}
+
+	@Test
+	void lateMessageOlderThanFullRingStopsReplayFromStart() {
+		installNewest(3, 3); // 방 전체 = 1,2,3 (링 가득)
+		assertThat(ids(cache.after(CHAT, 0, 10))).containsExactly(1L, 2L, 3L);
+
+		// 링의 어떤 것보다 앞선 시각으로 늦게 커밋된 메시지: 링에는 못 담고 건수만 센다
+		cache.append(new MessageResponse(10L, CHAT, 10L, 1L, "TEXT", "late", BASE, 0L));
+
+		assertThat(cache.latest(CHAT, 3).total()).isEqualTo(4);
+		assertThat(cache.after(CHAT, 0, 10)).isNull();
+		assertThat(ids(cache.after(CHAT, 1, 10))).containsExactly(2L, 3L);
+	}
+
+	@Test
+	void replaysFromStartOnlyWhenWholeRoomIsCachedAndIdIsOlder() {
+		installNewest(2, 2); // 방 전체 = 1,2
+
+		assertThat(ids(cache.after(CHAT, 0, 10))).containsExactly(1L, 2L);
+		assertThat(ids(cache.after(CHAT, 1, 10))).containsExactly(2L);
+		assertThat(ids(cache.after(CHAT, 0, 1))).containsExactly(1L);
+	}
+
+	@Test
+	void unknownLastSeenIdFallsBackToDb() {
+		installNewest(3, 3);
+
+		// 이 노드가 아직 못 받은 더 새로운 id → 처음부터 다시 보내면 안 된다
+		assertThat(cache.after(CHAT, 99, 10)).isNull();
+
+		cache.evict(CHAT);
+		installNewest(3, 10); // 링 = 8,9,10 / 방 전체 10건
+		// 링보다 오래된 지점 → 사이 메시지를 링이 갖고 있지 않다
+		assertThat(cache.after(CHAT, 2, 10)).isNull();
+	}
+
+	@Test
+	void emptyRoomReplaysNothing() {
+		cache.install(CHAT, cache.version(CHAT), List.of(), 0);
+
+		assertThat(cache.after(CHAT, 0, 10)).isEmpty();
+		assertThat(cache.latest(CHAT, 3).items()).isEmpty();
+	}
+
+	@Test
+	void rejectsInstallReadBeforeAppend() {
+		long version = cache.version(CHAT);
+		List<MessageResponse> fromDb = newestFirst(3, 3);
+		cache.append(msg(4)); // DB 를 읽는 사이 커밋된 메시지
+
+		cache.install(CHAT, version, fromDb, 3);
+
+		assertThat(cache.latest(CHAT, 3)).isNull();
+	}
+
+	@Test
+	void rejectsInstallReadBeforeInvalidate() {
+		installNewest(3, 3);
+		long version = cache.version(CHAT);
+		List<MessageResponse> fromDb = newestFirst(3, 3);
+		cache.evict(CHAT);
+
+		cache.install(CHAT, version, fromDb, 3);
+
+		assertThat(cache.latest(CHAT, 3)).isNull();
+		installNewest(3, 3); // 새로 받은 버전이면 설치된다
+		assertThat(ids(cache.latest(CHAT, 3).items())).containsExactly(3L, 2L, 1L);
+	}
+
+	@Test
+	void appendToUncachedRoomIsIgnored() {
+		cache.append(msg(1));
+
+		assertThat(cache.latest(CHAT, 1)).isNull();
+		assertThat(cache.after(CHAT, 0, 10)).isNull();
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedRoomOverChatLimit() {
+		RecentMessageCache small = new RecentMessageCache(new SimpleMeterRegistry(), 3, 2, 1 << 20, 300);
+		for (long chat = 1; chat <= 2; chat++) {
+			small.install(chat, small.version(chat), List.of(msg(chat, chat)), 1);
+		}
+		small.latest(1L, 1); // 1번 방을 최근에 씀
+
+		small.install(3L, small.version(3L), List.of(msg(3L, 3)), 1);
+
+		assertThat(small.latest(1L, 1)).isNotNull();
+		assertThat(small.latest(2L, 1)).isNull();
+		assertThat(small.latest(3L, 1)).isNotNull();
+	}
+
+	private void installNewest(int count, long newestId) {
+		cache.install(CHAT, cache.version(CHAT), newestFirst(count, newestId), newestId);
+	}
+
+	private static List<MessageResponse> newestFirst(int count, long newestId) {
+		List<MessageResponse> out = new ArrayList<>();
+		for (long id = newestId; id > newestId - count; id--) out.add(msg(id));
+		return out;
+	}
+
+	private static MessageResponse msg(long id) {
+		return msg(CHAT, id);
+	}
+
+	private static MessageResponse msg(Long chatId, long id) {
+		return new MessageResponse(id, chatId, id, 1L, "TEXT", "m" + id, BASE.plusMillis(id), 0L);
+	}
+
+	private static MessageResponse at(long id, Instant createdAt) {
+		return new MessageResponse(id, CHAT, id, 1L, "TEXT", "m" + id, createdAt, 0L);
+	}
+
+	private static List<Long> ids(List<MessageResponse> messages) {
+		return messages.stream().map(MessageResponse::id).toList();
+	}
+}
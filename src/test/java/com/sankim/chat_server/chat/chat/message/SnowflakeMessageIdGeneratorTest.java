@@ -0,0 +1,114 @@
+package com.sankim.chat_server.chat.chat.message;
+
+import com.sankim.chat_server.chat.chat.repository.MessageRepository;
+import com.sankim.chat_server.chat.chat.support.NodeIdentity;
+import com.sankim.chat_server.chat.chat.support.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SnowflakeMessageIdGeneratorTest {
+
+	private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+	private final MessageRepository messageRepo = mock(MessageRepository.class);
+	private final NodeIdentity nodeIdentity = new NodeIdentity("node-a", 8080);
+
+	@Test
+	void rejectsConfiguredWorkerIdAboveRange() {
+		assertThatThrownBy(() -> new SnowflakeMessageIdGenerator(redis, nodeIdentity, messageRepo,
+				SnowflakeIdGenerator.MAX_WORKER_ID + 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void usesConfiguredWorkerIdWithoutLeasing() {
+		when(messageRepo.findMaxId()).thenReturn(null);
+		SnowflakeMessageIdGenerator gen = new SnowflakeMessageIdGenerator(redis, nodeIdentity, messageRepo,
+				SnowflakeIdGenerator.MAX_WORKER_ID);
+
+		long id = gen.nextId();
+
+		assertThat((id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID)
+				.isEqualTo(SnowflakeIdGenerator.MAX_WORKER_ID);
+		verifyNoInteractions(redis);
+	}
+
+	@Test
+	void startsAboveStoredMaxId() {
+		// 재시작 전 노드가 미래 시각(시계가 앞서 있던 노드)으로 id 를 남겼다고 가정
+		long future = System.currentTimeMillis() + 60_000 - SnowflakeIdGenerator.EPOCH;
+		long storedMax = future << (SnowflakeIdGenerator.WORKER_BITS + SnowflakeIdGenerator.SEQUENCE_BITS);
+		when(messageRepo.findMaxId()).thenReturn(storedMax);
+		SnowflakeMessageIdGenerator gen = new SnowflakeMessageIdGenerator(redis, nodeIdentity, messageRepo, 0);
+
+		long first = gen.nextId();
+		long second = gen.nextId();
+
+		assertThat(first).isGreaterThan(storedMax);
+		assertThat(second).isGreaterThan(first);
+	}
+
+	@Test
+	void stopsIssuingWhenLeaseIsLostAndNoSlotIsFree() {
+		Set<String> taken = leasableRedis();
+		SnowflakeMessageIdGenerator gen = new SnowflakeMessageIdGenerator(redis, nodeIdentity, messageRepo, -1);
+		gen.nextId();
+
+		// 다른 노드가 번호를 가져갔고, 남은 번호도 없다
+		leaseLost();
+		taken.add("*");
+		gen.renewLease();
+
+		assertThatThrownBy(gen::nextId).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void resumesOnNewWorkerIdAfterLeaseIsLost() {
+		leasableRedis();
+		SnowflakeMessageIdGenerator gen = new SnowflakeMessageIdGenerator(redis, nodeIdentity, messageRepo, -1);
+		long before = gen.nextId();
+
+		leaseLost();
+		gen.renewLease();
+		long after = gen.nextId();
+
+		assertThat(workerOf(after)).isNotEqualTo(workerOf(before));
+		assertThat(after).isGreaterThan(before);
+	}
+
+	// setIfAbsent 는 처음 보는 키만 잡히게 한다 ("*" 를 넣으면 전부 임대중)
+	@SuppressWarnings("unchecked")
+	private Set<String> leasableRedis() {
+		Set<String> taken = new HashSet<>();
+		ValueOperations<String, String> ops = mock(ValueOperations.class);
+		when(redis.opsForValue()).thenReturn(ops);
+		when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+				.thenAnswer(inv -> !taken.contains("*") && taken.add(inv.getArgument(0)));
+		when(messageRepo.findMaxId()).thenReturn(null);
+		return taken;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void leaseLost() {
+		when(redis.execute(any(RedisScript.class), any(List.class), anyString(), anyString()))
+				.thenReturn(0L);
+	}
+
+	private static long workerOf(long id) {
+		return (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID;
+	}
+}
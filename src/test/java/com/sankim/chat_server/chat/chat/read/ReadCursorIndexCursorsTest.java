@@ -0,0 +1,107 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadCursorIndexCursorsTest {
+
+	@Test
+	void countsMembersReadAtOrPastMessage() {
+		ReadCursorIndex.Cursors c = cursors(1, 10, 2, 20, 3, 0);
+
+		assertThat(c.seenCount(10, null)).isEqualTo(2); // 읽음 위치 == 메시지 id 면 읽은 것
+		assertThat(c.seenCount(11, null)).isEqualTo(1);
+		assertThat(c.seenCount(20, null)).isEqualTo(1);
+		assertThat(c.seenCount(21, null)).isZero();
+		assertThat(c.seenCount(1, null)).isEqualTo(2);
+	}
+
+	@Test
+	void countsSenderOnlyWhenNotAlreadyPastMessage() {
+		ReadCursorIndex.Cursors c = cursors(1, 10, 2, 20);
+
+		assertThat(c.seenCount(15, 1L)).isEqualTo(2); // 보낸 사람(1)은 10 까지만 읽었지만 읽은 것으로 친다
+		assertThat(c.seenCount(15, 2L)).isEqualTo(1); // 이미 20 까지 읽어 한 번만 센다
+		assertThat(c.seenCount(15, 99L)).isEqualTo(1); // 멤버가 아닌 보낸 사람은 세지 않는다
+	}
+
+	@Test
+	void emptyRoomSeesNothing() {
+		ReadCursorIndex.Cursors c = cursors();
+
+		assertThat(c.seenCount(1, null)).isZero();
+		assertThat(c.seenCount(1, 7L)).isZero();
+		c.advance(7, 100); // 멤버가 아니면 무시
+		assertThat(c.seenCount(1, null)).isZero();
+	}
+
+	@Test
+	void ignoresOutOfOrderAndDuplicateAdvances() {
+		ReadCursorIndex.Cursors c = cursors(1, 0, 2, 0);
+
+		c.advance(1, 30);
+		c.advance(1, 10); // 늦게 도착한 옛 값
+		c.advance(1, 30); // 중복
+		c.advance(2, 20);
+
+		assertThat(c.seenCount(30, null)).isEqualTo(1);
+		assertThat(c.seenCount(20, null)).isEqualTo(2);
+		assertThat(c.seenCount(31, null)).isZero();
+	}
+
+	@Test
+	void advancePastEqualCursorsKeepsOrder() {
+		ReadCursorIndex.Cursors c = cursors(1, 5, 2, 5, 3, 5, 4, 9);
+
+		c.advance(2, 9);  // 같은 값들 사이에서 빠져 9 와 같은 자리로
+		c.advance(3, 12); // 뒤에 있는 값들을 모두 넘어 맨 끝으로
+
+		assertThat(c.seenCount(5, null)).isEqualTo(4);
+		assertThat(c.seenCount(6, null)).isEqualTo(3);
+		assertThat(c.seenCount(10, null)).isEqualTo(1);
+		assertThat(c.seenCount(13, null)).isZero();
+	}
+
+	@Test
+	void matchesLinearScanUnderRandomAdvances() {
+		Random random = new Random(42);
+		int members = 50;
+		long[][] pairs = new long[members][];
+		long[] expected = new long[members];
+		for (int i = 0; i < members; i++) {
+			expected[i] = random.nextInt(100);
+			pairs[i] = new long[]{(members - i) * 3L, expected[i]}; // 정렬 안 된 순서로 넘긴다
+		}
+		ReadCursorIndex.Cursors c = new ReadCursorIndex.Cursors(pairs);
+
+		for (int step = 0; step < 2_000; step++) {
+			int i = random.nextInt(members);
+			long cursor = random.nextInt(1_000);
+			c.advance((members - i) * 3L, cursor);
+			expected[i] = Math.max(expected[i], cursor);
+
+			long messageId = random.nextInt(1_001);
+			Long senderId = (members - random.nextInt(members)) * 3L;
+			assertThat(c.seenCount(messageId, senderId)).isEqualTo(linearSeenCount(expected, members, messageId, senderId));
+		}
+	}
+
+	private static long linearSeenCount(long[] cursors, int members, long messageId, Long senderId) {
+		long n = 0;
+		for (int i = 0; i < members; i++) {
+			boolean isSender = senderId == (members - i) * 3L;
+			if (cursors[i] >= messageId || isSender) n++;
+		}
+		return n;
+	}
+
+	// (userId, cursor) 쌍을 순서대로
+	private static ReadCursorIndex.Cursors cursors(long... userCursor) {
+		long[][] pairs = new long[userCursor.length / 2][];
+		for (int i = 0; i < pairs.length; i++) pairs[i] = new long[]{userCursor[2 * i], userCursor[2 * i + 1]};
+		return new ReadCursorIndex.Cursors(pairs);
+	}
+}
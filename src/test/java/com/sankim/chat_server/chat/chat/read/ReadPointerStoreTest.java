@@ -0,0 +1,93 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ReadPointerStoreTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final List<Object> events = new ArrayList<>();
+	private final ApplicationEventPublisher publisher = events::add;
+	private final ReadPointerStore store = new ReadPointerStore(jdbcTemplate,
+			new TransactionTemplate(mock(PlatformTransactionManager.class)), publisher, registry, 500);
+
+	@Test
+	void keepsMaximumOfOutOfOrderAdvances() {
+		assertThat(store.advance(1L, 10L, 50)).isTrue();
+		assertThat(store.advance(1L, 10L, 30)).isFalse(); // 늦게 도착한 옛 값
+		assertThat(store.advance(1L, 10L, 70)).isTrue();
+
+		assertThat(store.effective(1L, 10L, null)).isEqualTo(70L);
+		assertThat(registry.counter("chat.read.pointer.absorbed").count()).isEqualTo(1);
+	}
+
+	@Test
+	void duplicateAdvanceIsAbsorbed() {
+		assertThat(store.advance(1L, 10L, 50)).isTrue();
+		assertThat(store.advance(1L, 10L, 50)).isFalse();
+
+		assertThat(registry.counter("chat.read.pointer.absorbed").count()).isEqualTo(1);
+	}
+
+	@Test
+	void keysAreIndependentPerUserAndChat() {
+		store.advance(1L, 10L, 50);
+		store.advance(2L, 10L, 5);
+		store.advance(1L, 11L, 7);
+
+		assertThat(store.effective(1L, 10L, null)).isEqualTo(50L);
+		assertThat(store.effective(2L, 10L, null)).isEqualTo(5L);
+		assertThat(store.effective(1L, 11L, null)).isEqualTo(7L);
+		assertThat(store.effective(2L, 11L, 3L)).isEqualTo(3L);
+	}
+
+	@Test
+	void effectiveTakesLargerOfDbAndPending() {
+		assertThat(store.effective(1L, 10L, null)).isNull();
+		assertThat(store.effective(1L, 10L, 40L)).isEqualTo(40L);
+
+		store.advance(1L, 10L, 50);
+
+		assertThat(store.effective(1L, 10L, 40L)).isEqualTo(50L);
+		assertThat(store.effective(1L, 10L, 50L)).isEqualTo(50L);
+		assertThat(store.effective(1L, 10L, 60L)).isEqualTo(60L); // 다른 노드가 이미 더 앞까지 내렸다
+	}
+
+	@Test
+	void flushDropsFlushedValueAndPublishesEvent() {
+		store.advance(1L, 10L, 50);
+
+		store.flush();
+
+		assertThat(store.effective(1L, 10L, null)).isNull();
+		assertThat(events).containsExactly(new ReadPointerMovedEvent(1L, 10L, 50L));
+	}
+
+	@Test
+	void advanceDuringFlushSurvivesForNextFlush() {
+		store.advance(1L, 10L, 50);
+		// UPDATE 가 도는 사이 같은 키가 더 올라간다
+		doAnswer(inv -> {
+			store.advance(1L, 10L, 80);
+			return new int[]{1};
+		}).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+		store.flush();
+
+		assertThat(store.effective(1L, 10L, 50L)).isEqualTo(80L);
+	}
+}
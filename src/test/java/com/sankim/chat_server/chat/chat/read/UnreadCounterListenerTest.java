@@ -0,0 +1,62 @@
+package com.sankim.chat_server.chat.chat.read;
+
+import com.sankim.chat_server.chat.chat.api.dto.MessageResponse;
+import com.sankim.chat_server.chat.chat.member.ChatMemberCache;
+import com.sankim.chat_server.chat.chat.message.MessageCreatedEvent;
+import com.sankim.chat_server.chat.chat.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UnreadCounterListenerTest {
+
+	private final UnreadCounterStore store = mock(UnreadCounterStore.class);
+	private final ChatMemberCache memberCache = mock(ChatMemberCache.class);
+	private final MessageRepository messageRepo = mock(MessageRepository.class);
+	private final UnreadCounterListener listener = new UnreadCounterListener(store, memberCache, messageRepo);
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void defersIncrementsAndFlushesThemPerChat() {
+		long[] members = {1L, 2L, 3L};
+		when(memberCache.members(7L)).thenReturn(members);
+
+		listener.onMessageCreated(created(7L, 10L, 1L));
+		listener.onMessageCreated(created(7L, 11L, 2L));
+		verifyNoInteractions(store, memberCache); // 커밋 스레드에서는 Redis 를 부르지 않는다
+
+		listener.flushIncrements();
+		listener.flushIncrements(); // 이미 올린 것은 다시 안 올린다
+
+		ArgumentCaptor<List<long[]>> messages = ArgumentCaptor.forClass(List.class);
+		verify(store, times(1)).incrementForMembers(eq(7L), messages.capture(), eq(members));
+		assertThat(messages.getValue()).containsExactly(new long[]{10L, 1L}, new long[]{11L, 2L});
+	}
+
+	@Test
+	void recountsOnceWhenNewerIncrementLandsFirst() {
+		when(messageRepo.countUnreadAndSeq(7L, 1L, 100L)).thenReturn(new long[]{2, 10}, new long[]{3, 11});
+		when(store.set(eq(1L), eq(7L), anyLong(), anyLong())).thenReturn(false, true);
+
+		listener.onReadPointerMoved(new ReadPointerMovedEvent(1L, 7L, 100L));
+
+		verify(store).set(1L, 7L, 2, 10);
+		verify(store).set(1L, 7L, 3, 11);
+	}
+
+	private static MessageCreatedEvent created(long chatId, long seq, long senderId) {
+		return new MessageCreatedEvent(new MessageResponse(seq * 100, chatId, seq, senderId, "TEXT", "hi",
+				Instant.now(), 1L));
+	}
+}
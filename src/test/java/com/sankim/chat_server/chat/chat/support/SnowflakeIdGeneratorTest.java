@@ -0,0 +1,123 @@
+package com.sankim.chat_server.chat.chat.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+	private static final long NOW = SnowflakeIdGenerator.EPOCH + 86_400_000L;
+	private static final int PER_MILLI = 1 << SnowflakeIdGenerator.SEQUENCE_BITS;
+
+	@Test
+	void rejectsWorkerIdOutOfRange() {
+		assertThatThrownBy(() -> new SnowflakeIdGenerator(-1, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void encodesWorkerIdAtBounds() {
+		long first = new SnowflakeIdGenerator(0, 0, () -> NOW).nextId();
+		long last = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID, 0, () -> NOW).nextId();
+
+		assertThat(workerOf(first)).isZero();
+		assertThat(workerOf(last)).isEqualTo(SnowflakeIdGenerator.MAX_WORKER_ID);
+		assertThat(SnowflakeIdGenerator.timestampOf(first)).isEqualTo(NOW);
+		assertThat(SnowflakeIdGenerator.timestampOf(last)).isEqualTo(NOW);
+		// 같은 시각이면 worker 가 달라도 겹치지 않고, 시각 비트는 worker 비트로 넘치지 않는다
+		assertThat(last).isGreaterThan(first);
+	}
+
+	@Test
+	void staysMonotonicWhenClockGoesBackwards() {
+		AtomicLong clock = new AtomicLong(NOW);
+		SnowflakeIdGenerator gen = new SnowflakeIdGenerator(7, 0, clock::get);
+
+		long before = gen.nextId();
+		clock.set(NOW - 5_000);
+		long during = gen.nextId();
+		long during2 = gen.nextId();
+		clock.set(NOW + 1);
+		long after = gen.nextId();
+
+		assertThat(during).isGreaterThan(before);
+		assertThat(during2).isGreaterThan(during);
+		assertThat(after).isGreaterThan(during2);
+		// 역행하는 동안은 마지막 시각을 그대로 쓰고 순번만 올린다
+		assertThat(SnowflakeIdGenerator.timestampOf(during)).isEqualTo(NOW);
+		assertThat(sequenceOf(during2)).isEqualTo(2);
+		assertThat(SnowflakeIdGenerator.timestampOf(after)).isEqualTo(NOW + 1);
+		assertThat(sequenceOf(after)).isZero();
+	}
+
+	@Test
+	void startsAboveFloorIdEvenIfClockIsBehind() {
+		long floorId = new SnowflakeIdGenerator(3, 0, () -> NOW + 10_000).nextId() + 4095;
+		SnowflakeIdGenerator gen = new SnowflakeIdGenerator(3, floorId, () -> NOW);
+
+		long id = gen.nextId();
+
+		assertThat(id).isGreaterThan(floorId);
+		assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(NOW + 10_001);
+	}
+
+	@Test
+	void borrowsNextMillisecondWhenSequenceIsExhausted() {
+		SnowflakeIdGenerator gen = new SnowflakeIdGenerator(1, 0, () -> NOW);
+
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < PER_MILLI * 2 + 1; i++) ids.add(gen.nextId());
+
+		assertThat(ids).isSorted().doesNotHaveDuplicates();
+		assertThat(SnowflakeIdGenerator.timestampOf(ids.get(PER_MILLI - 1))).isEqualTo(NOW);
+		assertThat(sequenceOf(ids.get(PER_MILLI - 1))).isEqualTo(PER_MILLI - 1);
+		assertThat(SnowflakeIdGenerator.timestampOf(ids.get(PER_MILLI))).isEqualTo(NOW + 1);
+		assertThat(sequenceOf(ids.get(PER_MILLI))).isZero();
+		assertThat(SnowflakeIdGenerator.timestampOf(ids.get(PER_MILLI * 2))).isEqualTo(NOW + 2);
+	}
+
+	@Test
+	void concurrentCallersNeverShareAnId() throws InterruptedException {
+		// 시계를 고정해 모든 스레드가 같은 밀리초의 순번을 두고 경쟁하게 한다
+		SnowflakeIdGenerator gen = new SnowflakeIdGenerator(5, 0, () -> NOW);
+		int threads = 8;
+		int perThread = 20_000;
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			Thread w = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perThread; i++) ids.add(gen.nextId());
+			});
+			w.start();
+			workers.add(w);
+		}
+		start.countDown();
+		for (Thread w : workers) w.join();
+
+		assertThat(ids).hasSize(threads * perThread);
+	}
+
+	private static long workerOf(long id) {
+		return (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID;
+	}
+
+	private static long sequenceOf(long id) {
+		return id & (PER_MILLI - 1);
+	}
+}
@@ -0,0 +1,247 @@
+package com.sankim.chat_server.chat.chat.ws;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboundSessionTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final OutboundSessionFactory.Stats stats = new OutboundSessionFactory.Stats(registry);
+	private final RecordingSession ws = new RecordingSession();
+	// 송신 풀 대신 작업을 모아 두었다가 flush() 에서 실행 → enqueue 중에는 큐가 비워지지 않는다
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final Executor sender = tasks::add;
+
+	@Test
+	void dropOldestKeepsNewestFramesWithinMessageCap() {
+		OutboundSession out = session(3, 1 << 20, OverflowPolicy.DROP_OLDEST);
+
+		for (int i = 1; i <= 5; i++) assertThat(out.enqueue(frame("m" + i, 1L))).isTrue();
+
+		assertThat(out.depth()).isEqualTo(3);
+		flush();
+		assertThat(ws.sentPayloads()).containsExactly("m3", "m4", "m5");
+		assertThat(ws.closeStatus).isNull();
+		assertThat(counter("chat.ws.outbound.dropped")).isEqualTo(2);
+		assertThat(overflows(OverflowPolicy.DROP_OLDEST)).isEqualTo(2);
+	}
+
+	@Test
+	void dropOldestFreesEnoughBytesForIncomingFrame() {
+		OutboundSession out = session(100, 10, OverflowPolicy.DROP_OLDEST);
+
+		out.enqueue(frame("aaaa", 1L));
+		out.enqueue(frame("bbbb", 1L));
+		out.enqueue(frame("cccccc", 1L)); // 4 + 4 + 6 > 10 → 가장 오래된 aaaa 만 버리면 들어간다
+
+		flush();
+		assertThat(ws.sentPayloads()).containsExactly("bbbb", "cccccc");
+		assertThat(counter("chat.ws.outbound.dropped")).isEqualTo(1);
+	}
+
+	@Test
+	void dropOldestStillAcceptsFrameLargerThanByteCap() {
+		OutboundSession out = session(100, 4, OverflowPolicy.DROP_OLDEST);
+
+		out.enqueue(frame("aa", 1L));
+		assertThat(out.enqueue(frame("too-large", 1L))).isTrue();
+
+		flush();
+		assertThat(ws.sentPayloads()).containsExactly("too-large");
+	}
+
+	@Test
+	void coalesceReplacesBacklogWithResyncHint() {
+		OutboundSession out = session(3, 1 << 20, OverflowPolicy.COALESCE);
+
+		out.enqueue(frame("m1", 2L));
+		out.enqueue(frame("m2", 1L));
+		out.enqueue(frame("m3", 2L));
+		assertThat(out.enqueue(frame("m4", 3L))).isTrue();
+
+		assertThat(out.depth()).isEqualTo(2);
+		flush();
+		assertThat(ws.sentPayloads()).containsExactly("{\"type\":\"resync\",\"chatIds\":[1,2,3]}", "m4");
+		assertThat(counter("chat.ws.outbound.dropped")).isEqualTo(3);
+		assertThat(ws.closeStatus).isNull();
+	}
+
+	@Test
+	void coalesceAgainKeepsRoomsOfPendingResyncHint() {
+		OutboundSession out = session(2, 1 << 20, OverflowPolicy.COALESCE);
+
+		out.enqueue(frame("m1", 1L));
+		out.enqueue(frame("m2", 2L));
+		out.enqueue(frame("m3", 3L)); // → [resync(1,2,3), m3]
+		out.enqueue(frame("m4", 4L)); // → [resync(1,2,3,4), m4]
+
+		flush();
+		assertThat(ws.sentPayloads()).containsExactly("{\"type\":\"resync\",\"chatIds\":[1,2,3,4]}", "m4");
+
+		// 힌트가 나간 뒤에는 새로 합칠 방만 담는다
+		out.enqueue(frame("m5", 5L));
+		out.enqueue(frame("m6", 5L));
+		out.enqueue(frame("m7", 6L));
+		flush();
+		assertThat(ws.sentPayloads()).endsWith("{\"type\":\"resync\",\"chatIds\":[5,6]}", "m7");
+	}
+
+	@Test
+	void coalesceTriggersOnByteCap() {
+		OutboundSession out = session(100, 8, OverflowPolicy.COALESCE);
+
+		out.enqueue(frame("aaaa", 7L));
+		out.enqueue(frame("bbbb", 8L));
+		out.enqueue(frame("c", 9L));
+
+		flush();
+		assertThat(ws.sentPayloads()).containsExactly("{\"type\":\"resync\",\"chatIds\":[7,8,9]}", "c");
+	}
+
+	@Test
+	void closePolicyClosesSessionWithResyncStatus() {
+		OutboundSession out = session(2, 1 << 20, OverflowPolicy.CLOSE);
+
+		assertThat(out.enqueue(frame("m1", 1L))).isTrue();
+		assertThat(out.enqueue(frame("m2", 1L))).isTrue();
+		assertThat(out.enqueue(frame("m3", 1L))).isFalse();
+
+		assertThat(ws.closeStatus).isEqualTo(OutboundSession.RESYNC);
+		assertThat(out.depth()).isZero();
+		assertThat(out.enqueue(frame("m4", 1L))).isFalse();
+		flush();
+		assertThat(ws.sent).isEmpty();
+		assertThat(overflows(OverflowPolicy.CLOSE)).isEqualTo(1);
+	}
+
+	@Test
+	void closePolicyTriggersOnByteCap() {
+		OutboundSession out = session(100, 5, OverflowPolicy.CLOSE);
+
+		assertThat(out.enqueue(frame("aaaa", 1L))).isTrue();
+		assertThat(out.enqueue(frame("bb", 1L))).isFalse();
+
+		assertThat(ws.closeStatus).isEqualTo(OutboundSession.RESYNC);
+	}
+
+	@Test
+	void coalesceKeyKeepsOnlyLatestFrameRegardlessOfPolicy() {
+		OutboundSession out = session(100, 1 << 20, OverflowPolicy.CLOSE);
+
+		out.enqueue(keyed("typing-a", "typing:1"));
+		out.enqueue(frame("m1", 1L));
+		out.enqueue(keyed("typing-b", "typing:1"));
+
+		flush();
+		assertThat(ws.sentPayloads()).containsExactly("m1", "typing-b");
+		assertThat(counter("chat.ws.outbound.coalesced")).isEqualTo(1);
+	}
+
+	@Test
+	void closesSlowConsumerOnNextEnqueue() {
+		OutboundSession out = session(100, 1 << 20, OverflowPolicy.DROP_OLDEST, 1);
+		// 전송이 한도(1ms)보다 오래 걸리는 동안 다음 프레임이 들어온다
+		ws.onSend = () -> {
+			sleep(20);
+			assertThat(out.enqueue(frame("m2", 1L))).isFalse();
+		};
+
+		out.enqueue(frame("m1", 1L));
+		flush();
+
+		assertThat(ws.sentPayloads()).containsExactly("m1");
+		assertThat(ws.closeStatus).isEqualTo(OutboundSession.RESYNC);
+		assertThat(overflows(OverflowPolicy.CLOSE)).isEqualTo(1);
+	}
+
+	private OutboundSession session(int maxMessages, long maxBytes, OverflowPolicy policy) {
+		return session(maxMessages, maxBytes, policy, 10_000);
+	}
+
+	private OutboundSession session(int maxMessages, long maxBytes, OverflowPolicy policy, long sendTimeLimitMs) {
+		return new OutboundSession(ws, 1L, false, sender, maxMessages, maxBytes, sendTimeLimitMs, policy, stats);
+	}
+
+	private void flush() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) task.run();
+	}
+
+	private double counter(String name) {
+		return registry.counter(name).count();
+	}
+
+	private double overflows(OverflowPolicy policy) {
+		return registry.counter("chat.ws.outbound.overflow", "policy", policy.name()).count();
+	}
+
+	private static OutboundFrame frame(String payload, Long chatId) {
+		return OutboundFrame.of(new TextMessage(payload), chatId);
+	}
+
+	private static OutboundFrame keyed(String payload, String coalesceKey) {
+		return new OutboundFrame(new TextMessage(payload), payload.length(), null, coalesceKey);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** 보낸 프레임과 닫힘 사유를 기록하는 세션 */
+	static final class RecordingSession implements WebSocketSession {
+		final List<WebSocketMessage<?>> sent = new ArrayList<>();
+		final Map<String, Object> attributes = new HashMap<>();
+		Runnable onSend = () -> { };
+		CloseStatus closeStatus;
+
+		List<String> sentPayloads() {
+			return sent.stream().map(m -> ((TextMessage) m).getPayload()).toList();
+		}
+
+		@Override public String getId() { return "s-1"; }
+		@Override public URI getUri() { return null; }
+		@Override public HttpHeaders getHandshakeHeaders() { return HttpHeaders.EMPTY; }
+		@Override public Map<String, Object> getAttributes() { return attributes; }
+		@Override public Principal getPrincipal() { return null; }
+		@Override public InetSocketAddress getLocalAddress() { return null; }
+		@Override public InetSocketAddress getRemoteAddress() { return null; }
+		@Override public String getAcceptedProtocol() { return null; }
+		@Override public void setTextMessageSizeLimit(int messageSizeLimit) { }
+		@Override public int getTextMessageSizeLimit() { return Integer.MAX_VALUE; }
+		@Override public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+		@Override public int getBinaryMessageSizeLimit() { return Integer.MAX_VALUE; }
+		@Override public List<WebSocketExtension> getExtensions() { return List.of(); }
+		@Override public boolean isOpen() { return closeStatus == null; }
+		@Override public void close() { close(CloseStatus.NORMAL); }
+		@Override public void close(CloseStatus status) { closeStatus = status; }
+
+		@Override
+		public void sendMessage(WebSocketMessage<?> message) {
+			sent.add(message);
+			onSend.run();
+		}
+	}
+}